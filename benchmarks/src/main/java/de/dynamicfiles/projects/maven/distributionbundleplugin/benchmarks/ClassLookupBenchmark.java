@@ -0,0 +1,86 @@
+/*
+ * Copyright 2018 Danny Althoff
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.dynamicfiles.projects.maven.distributionbundleplugin.benchmarks;
+
+import de.dynamicfiles.projects.maven.distributionbundleplugin.InternalUtils;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the lookup of the main-class inside the generated jar-file, using jar-files having lots of entries.
+ *
+ * @author Danny Althoff
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class ClassLookupBenchmark {
+
+    @Param({"10000", "50000"})
+    public int amountOfEntries;
+
+    private final InternalUtils internalUtils = new InternalUtils();
+
+    private Path workFolder;
+    private File jarFile;
+    private String existingClassname;
+    private String missingClassname;
+
+    @Setup(Level.Trial)
+    public void createJarFile() throws IOException {
+        workFolder = Files.createTempDirectory("distbundle-benchmark");
+        Path syntheticJarFile = workFolder.resolve("synthetic.jar");
+        SyntheticFiles.createJar(syntheticJarFile, amountOfEntries);
+        jarFile = syntheticJarFile.toFile();
+        // last entry, as some implementation might iterate over all entries
+        existingClassname = SyntheticFiles.getClassname(amountOfEntries - 1);
+        missingClassname = "de.dynamicfiles.synthetic.MissingClass";
+    }
+
+    @TearDown(Level.Trial)
+    public void removeWorkFolder() throws IOException {
+        SyntheticFiles.deleteTree(workFolder);
+    }
+
+    @Benchmark
+    public boolean isClassInsideJarFileExisting() {
+        return internalUtils.isClassInsideJarFile(existingClassname, "", jarFile);
+    }
+
+    @Benchmark
+    public boolean isClassInsideJarFileMissing() {
+        return internalUtils.isClassInsideJarFile(missingClassname, "", jarFile);
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright 2018 Danny Althoff
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.dynamicfiles.projects.maven.distributionbundleplugin.benchmarks;
+
+import de.dynamicfiles.projects.maven.distributionbundleplugin.InternalUtils;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures copying, deleting and packing of whole folders, as done for every bundle.
+ *
+ * Each operation works on files, so every invocation gets a clean target area. The measured time contains the filesystem, which is
+ * intended: the results are meant to compare different implementations on the same machine.
+ *
+ * @author Danny Althoff
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(1)
+public class FileTreeBenchmark {
+
+    @Param({SyntheticFiles.TREE_MANY_SMALL_FILES, SyntheticFiles.TREE_FEW_HUGE_FILES, SyntheticFiles.TREE_DEEP_NESTING})
+    public String treeShape;
+
+    private final InternalUtils internalUtils = new InternalUtils();
+
+    private Path workFolder;
+    private Path sourceFolder;
+    private Path targetFolder;
+    private Path targetZipFile;
+
+    @Setup(Level.Trial)
+    public void createSourceTree() throws IOException {
+        workFolder = Files.createTempDirectory("distbundle-benchmark");
+        sourceFolder = workFolder.resolve("source");
+        SyntheticFiles.createTree(treeShape, sourceFolder);
+        targetFolder = workFolder.resolve("target");
+        targetZipFile = workFolder.resolve("target.zip");
+    }
+
+    @Setup(Level.Invocation)
+    public void prepareTargetArea() throws IOException {
+        SyntheticFiles.deleteTree(targetFolder);
+        Files.deleteIfExists(targetZipFile);
+    }
+
+    @TearDown(Level.Trial)
+    public void removeWorkFolder() throws IOException {
+        SyntheticFiles.deleteTree(workFolder);
+    }
+
+    @Benchmark
+    public boolean copyRecursive() throws IOException {
+        return internalUtils.copyRecursive(sourceFolder, targetFolder);
+    }
+
+    @Benchmark
+    public void pack() throws IOException {
+        internalUtils.pack(sourceFolder, targetZipFile);
+    }
+
+    @Benchmark
+    public void packParallel() throws IOException {
+        internalUtils.pack(sourceFolder, targetZipFile, Runtime.getRuntime().availableProcessors());
+    }
+
+    @Benchmark
+    public boolean deleteRecursive(DeletableTree deletableTree) throws IOException {
+        return internalUtils.deleteRecursive(deletableTree.folder);
+    }
+
+    /**
+     * Deleting needs a fresh copy of the source tree for every invocation, which is not part of the measurement.
+     */
+    @State(Scope.Benchmark)
+    public static class DeletableTree {
+
+        private Path folder;
+
+        @Setup(Level.Invocation)
+        public void copySourceTree(FileTreeBenchmark benchmark) throws IOException {
+            folder = benchmark.workFolder.resolve("to-delete");
+            SyntheticFiles.deleteTree(folder);
+            new InternalUtils().copyRecursive(benchmark.sourceFolder, folder);
+        }
+    }
+}
@@ -0,0 +1,143 @@
+/*
+ * Copyright 2018 Danny Althoff
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.dynamicfiles.projects.maven.distributionbundleplugin.benchmarks;
+
+import de.dynamicfiles.projects.maven.distributionbundleplugin.InProcessJarSigner;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares signing via external jarsigner-process with signing in-process (requires JDK 9+). Both are using the same keystore and
+ * signing parameters, every invocation signs some fresh unsigned copy of the jar-file.
+ *
+ * @author Danny Althoff
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class JarSigningBenchmark {
+
+    private static final String STOREPASS = "benchmark";
+    private static final String ALIAS = "benchmark";
+
+    @Param({"1", "50", "500"})
+    public int jarSizeInMegabytes;
+
+    private Path workFolder;
+    private Path unsignedJarFile;
+    private Path jarFileToSign;
+    private List<String> signParameters;
+    private InProcessJarSigner inProcessJarSigner;
+    private String pathToJarsigner;
+
+    @Setup(Level.Trial)
+    public void prepareSigning() throws IOException, InterruptedException {
+        workFolder = Files.createTempDirectory("distbundle-benchmark");
+        unsignedJarFile = workFolder.resolve("unsigned.jar");
+        SyntheticFiles.createJarOfSize(unsignedJarFile, jarSizeInMegabytes * 1024L * 1024L);
+        jarFileToSign = workFolder.resolve("to-sign.jar");
+
+        Path keystore = workFolder.resolve("benchmark.p12");
+        runProcess(Arrays.asList(
+                SyntheticFiles.findJdkTool("keytool"),
+                "-genkeypair",
+                "-storetype", "pkcs12",
+                "-keystore", keystore.toString(),
+                "-storepass", STOREPASS,
+                "-keypass", STOREPASS,
+                "-alias", ALIAS,
+                "-dname", "cn=Benchmark",
+                "-keyalg", "RSA",
+                "-keysize", "2048",
+                "-validity", "1"
+        ));
+
+        signParameters = Arrays.asList(
+                "-keystore", keystore.toString(),
+                "-storetype", "pkcs12",
+                "-storepass", STOREPASS,
+                "-keypass", STOREPASS,
+                "{JAR}",
+                ALIAS
+        );
+        pathToJarsigner = SyntheticFiles.findJdkTool("jarsigner");
+        if( InProcessJarSigner.isAvailable() ){
+            inProcessJarSigner = InProcessJarSigner.create(signParameters, workFolder);
+        }
+    }
+
+    @Setup(Level.Invocation)
+    public void copyUnsignedJarFile() throws IOException {
+        Files.copy(unsignedJarFile, jarFileToSign, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    @TearDown(Level.Trial)
+    public void removeWorkFolder() throws IOException {
+        SyntheticFiles.deleteTree(workFolder);
+    }
+
+    @Benchmark
+    public void externalJarsigner() throws IOException, InterruptedException {
+        List<String> signingCommand = new ArrayList<>();
+        signingCommand.add(pathToJarsigner);
+        signParameters.forEach(signParameter -> {
+            signingCommand.add("{JAR}".equals(signParameter) ? jarFileToSign.toString() : signParameter);
+        });
+        runProcess(signingCommand);
+    }
+
+    @Benchmark
+    public void inProcess() throws IOException {
+        if( inProcessJarSigner == null ){
+            throw new IllegalStateException("Signing in-process requires JDK 9 or newer.");
+        }
+        inProcessJarSigner.sign(jarFileToSign);
+    }
+
+    private void runProcess(List<String> command) throws IOException, InterruptedException {
+        Process process = new ProcessBuilder(command)
+                .directory(workFolder.toFile())
+                .redirectErrorStream(true)
+                .redirectOutput(workFolder.resolve("process.log").toFile())
+                .start();
+        process.getOutputStream().close();
+        if( process.waitFor() != 0 ){
+            throw new IOException("Process failed, please check: " + workFolder.resolve("process.log"));
+        }
+    }
+}
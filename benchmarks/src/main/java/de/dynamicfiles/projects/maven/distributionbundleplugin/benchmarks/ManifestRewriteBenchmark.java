@@ -0,0 +1,111 @@
+/*
+ * Copyright 2018 Danny Althoff
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.dynamicfiles.projects.maven.distributionbundleplugin.benchmarks;
+
+import de.dynamicfiles.projects.maven.distributionbundleplugin.JarFileRewriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.jar.Attributes;
+import java.util.jar.JarFile;
+import java.util.jar.Manifest;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares strategies for writing a new manifest (main-class and classpath) while copying the generated jar-file into the bundle:
+ * <ul>
+ * <li>copying the jar-file and editing it via "jar:"-filesystem (which rewrites the whole archive on close)</li>
+ * <li>streaming all entries as raw compressed data into the target, as done by the plugin</li>
+ * </ul>
+ *
+ * @author Danny Althoff
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ManifestRewriteBenchmark {
+
+    @Param({"1", "50", "500"})
+    public int jarSizeInMegabytes;
+
+    private Path workFolder;
+    private Path sourceJarFile;
+    private Path targetJarFile;
+    private Manifest manifest;
+
+    @Setup(Level.Trial)
+    public void createSourceJarFile() throws IOException {
+        workFolder = Files.createTempDirectory("distbundle-benchmark");
+        sourceJarFile = workFolder.resolve("source.jar");
+        SyntheticFiles.createJarOfSize(sourceJarFile, jarSizeInMegabytes * 1024L * 1024L);
+        targetJarFile = workFolder.resolve("target.jar");
+
+        try(JarFile jarFile = new JarFile(sourceJarFile.toFile())){
+            manifest = new Manifest(jarFile.getManifest());
+        }
+        manifest.getMainAttributes().put(Attributes.Name.MAIN_CLASS, SyntheticFiles.getClassname(1));
+        manifest.getMainAttributes().put(Attributes.Name.CLASS_PATH, "lib/first-dependency.jar lib/second-dependency.jar");
+    }
+
+    @Setup(Level.Invocation)
+    public void removeTargetJarFile() throws IOException {
+        Files.deleteIfExists(targetJarFile);
+    }
+
+    @TearDown(Level.Trial)
+    public void removeWorkFolder() throws IOException {
+        SyntheticFiles.deleteTree(workFolder);
+    }
+
+    @Benchmark
+    public void zipFileSystemRewrite() throws IOException {
+        Files.copy(sourceJarFile, targetJarFile, StandardCopyOption.REPLACE_EXISTING);
+        URI targetJarFileUri = URI.create("jar:" + targetJarFile.toUri().toString());
+        try(FileSystem jarFileSystem = FileSystems.newFileSystem(targetJarFileUri, new HashMap<>())){
+            try(OutputStream manifestOutputStream = Files.newOutputStream(jarFileSystem.getPath(JarFile.MANIFEST_NAME), StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)){
+                manifest.write(manifestOutputStream);
+            }
+        }
+    }
+
+    @Benchmark
+    public void streamingRawEntryCopy() throws IOException {
+        JarFileRewriter.rewrite(sourceJarFile, targetJarFile, manifest);
+    }
+}
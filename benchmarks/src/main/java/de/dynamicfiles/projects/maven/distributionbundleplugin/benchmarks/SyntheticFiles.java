@@ -0,0 +1,201 @@
+/*
+ * Copyright 2018 Danny Althoff
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.dynamicfiles.projects.maven.distributionbundleplugin.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Random;
+import java.util.jar.Attributes;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+
+/**
+ * Creates synthetic file trees and jar-files to run the benchmarks on. All content is generated using a fixed seed, so every run
+ * works on the same data.
+ *
+ * @author Danny Althoff
+ */
+public class SyntheticFiles {
+
+    /**
+     * Shapes of file trees, as they appear inside bundles: lots of small resources, few huge files (e.g. some bundled JRE module
+     * image) or deeply nested folders (e.g. exploded web applications).
+     */
+    public static final String TREE_MANY_SMALL_FILES = "many-small-files";
+    public static final String TREE_FEW_HUGE_FILES = "few-huge-files";
+    public static final String TREE_DEEP_NESTING = "deep-nesting";
+
+    private static final long SEED = 20180101L;
+
+    private SyntheticFiles() {
+        // utility class
+    }
+
+    public static void createTree(String treeShape, Path targetFolder) throws IOException {
+        Random random = new Random(SEED);
+        switch(treeShape) {
+            case TREE_MANY_SMALL_FILES:
+                // 10.000 files having 1 KiB each, spread over 100 folders
+                for( int folderIndex = 0; folderIndex < 100; folderIndex++ ){
+                    Path folder = Files.createDirectories(targetFolder.resolve("folder-" + folderIndex));
+                    for( int fileIndex = 0; fileIndex < 100; fileIndex++ ){
+                        writeRandomFile(random, folder.resolve("file-" + fileIndex + ".txt"), 1024);
+                    }
+                }
+                break;
+            case TREE_FEW_HUGE_FILES:
+                // 4 files having 32 MiB each
+                Files.createDirectories(targetFolder);
+                for( int fileIndex = 0; fileIndex < 4; fileIndex++ ){
+                    writeRandomFile(random, targetFolder.resolve("huge-file-" + fileIndex + ".bin"), 32 * 1024 * 1024);
+                }
+                break;
+            case TREE_DEEP_NESTING:
+                // 64 nested levels having 16 files of 4 KiB each
+                Path folder = targetFolder;
+                for( int level = 0; level < 64; level++ ){
+                    folder = Files.createDirectories(folder.resolve("level-" + level));
+                    for( int fileIndex = 0; fileIndex < 16; fileIndex++ ){
+                        writeRandomFile(random, folder.resolve("file-" + fileIndex + ".txt"), 4 * 1024);
+                    }
+                }
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown tree shape: " + treeShape);
+        }
+    }
+
+    /**
+     * Creates some jar-file containing the given amount of class-entries, having a small random content each.
+     *
+     * @param targetJarFile
+     * @param amountOfEntries
+     *
+     * @throws IOException
+     */
+    public static void createJar(Path targetJarFile, int amountOfEntries) throws IOException {
+        Random random = new Random(SEED);
+        Manifest manifest = new Manifest();
+        manifest.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION, "1.0");
+        byte[] content = new byte[512];
+        try(JarOutputStream jarOutputStream = new JarOutputStream(Files.newOutputStream(targetJarFile), manifest)){
+            for( int entryIndex = 0; entryIndex < amountOfEntries; entryIndex++ ){
+                jarOutputStream.putNextEntry(new JarEntry(getClassEntryName(entryIndex)));
+                random.nextBytes(content);
+                jarOutputStream.write(content);
+                jarOutputStream.closeEntry();
+            }
+        }
+    }
+
+    /**
+     * Creates some jar-file of (nearly) the given size, like some fat-jar: containing some manifest with main-class and lots of
+     * entries having 64 KiB of random content each (which is not compressible, so the jar-file has the requested size).
+     *
+     * @param targetJarFile
+     * @param sizeInBytes
+     *
+     * @throws IOException
+     */
+    public static void createJarOfSize(Path targetJarFile, long sizeInBytes) throws IOException {
+        Random random = new Random(SEED);
+        Manifest manifest = new Manifest();
+        manifest.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION, "1.0");
+        manifest.getMainAttributes().put(Attributes.Name.MAIN_CLASS, getClassname(0));
+        byte[] content = new byte[64 * 1024];
+        long amountOfEntries = Math.max(1, sizeInBytes / content.length);
+        try(JarOutputStream jarOutputStream = new JarOutputStream(Files.newOutputStream(targetJarFile), manifest)){
+            for( int entryIndex = 0; entryIndex < amountOfEntries; entryIndex++ ){
+                jarOutputStream.putNextEntry(new JarEntry(getClassEntryName(entryIndex)));
+                random.nextBytes(content);
+                jarOutputStream.write(content);
+                jarOutputStream.closeEntry();
+            }
+        }
+    }
+
+    /**
+     * Looks up some tool of the JDK running the benchmarks, the same way as the plugin does (JDK 8 has its JRE inside the JDK).
+     *
+     * @param toolName e.g. "jarsigner" or "keytool"
+     *
+     * @return absolute path to the executable
+     */
+    public static String findJdkTool(String toolName) {
+        String platformExecutableFileExtension = System.getProperty("os.name").toLowerCase().contains("win") ? ".exe" : "";
+        Path javaHome = new File(System.getProperty("java.home")).toPath();
+        Path toolPath = javaHome.resolve("bin").resolve(toolName + platformExecutableFileExtension);
+        if( !Files.exists(toolPath) ){
+            toolPath = javaHome.getParent().resolve("bin").resolve(toolName + platformExecutableFileExtension);
+        }
+        if( !Files.exists(toolPath) ){
+            throw new IllegalStateException("Could not find " + toolName + " inside JDK: " + javaHome);
+        }
+        return toolPath.toAbsolutePath().toString();
+    }
+
+    /**
+     * @param entryIndex
+     *
+     * @return full qualified classname of the entry created by {@link #createJar(java.nio.file.Path, int) }
+     */
+    public static String getClassname(int entryIndex) {
+        return "de.dynamicfiles.synthetic.package" + (entryIndex % 100) + ".SyntheticClass" + entryIndex;
+    }
+
+    public static void deleteTree(Path folder) throws IOException {
+        if( !Files.exists(folder) ){
+            return;
+        }
+        Files.walkFileTree(folder, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                Files.delete(file);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult postVisitDirectory(Path dir, IOException exc) throws IOException {
+                Files.delete(dir);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    private static String getClassEntryName(int entryIndex) {
+        return getClassname(entryIndex).replace(".", "/") + ".class";
+    }
+
+    private static void writeRandomFile(Random random, Path file, int size) throws IOException {
+        byte[] buffer = new byte[Math.min(size, 64 * 1024)];
+        try(OutputStream fileOutputStream = Files.newOutputStream(file)){
+            int remaining = size;
+            while( remaining > 0 ){
+                random.nextBytes(buffer);
+                int toWrite = Math.min(remaining, buffer.length);
+                fileOutputStream.write(buffer, 0, toWrite);
+                remaining -= toWrite;
+            }
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package de.dynamicfiles.projects.maven.distributionbundleplugin.example.incrementaldependencycopy;
+
+public class Main {
+
+    public static void main(String[] args) {
+        System.out.println("Hello World");
+    }
+
+}
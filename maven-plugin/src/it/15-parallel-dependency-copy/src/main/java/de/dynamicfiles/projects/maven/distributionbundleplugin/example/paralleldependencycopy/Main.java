@@ -0,0 +1,9 @@
+package de.dynamicfiles.projects.maven.distributionbundleplugin.example.paralleldependencycopy;
+
+public class Main {
+
+    public static void main(String[] args) {
+        System.out.println("Hello World");
+    }
+
+}
@@ -0,0 +1,11 @@
+package de.dynamicfiles.projects.maven.distributionbundleplugin.example.scanforadditionalclasses;
+
+import java.lang.instrument.Instrumentation;
+
+public class Agent {
+
+    public static void premain(String agentArgs, Instrumentation instrumentation) {
+        System.out.println("Hello World from agent class.");
+    }
+
+}
@@ -0,0 +1,9 @@
+package de.dynamicfiles.projects.maven.distributionbundleplugin.example.scanforadditionalclasses;
+
+public class SecondMain {
+
+    public static void main(String[] args) {
+        System.out.println("Hello World from second main class.");
+    }
+
+}
@@ -0,0 +1,2 @@
+#!/bin/sh
+exec java -jar "$(dirname "$0")/../reproducible-bundle-1.0.jar" "$@"
@@ -0,0 +1,441 @@
+/*
+ * Copyright 2018 Danny Althoff
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.dynamicfiles.projects.maven.distributionbundleplugin;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * Binary difference between two versions of some file, describing the new version by ranges copied from the old version and by
+ * inserted bytes. Matching ranges are found the same way rsync does: the old version is split into blocks identified by some
+ * rolling checksum, which gets moved byte by byte over the new version. This works well for jar-files, as unchanged entries are
+ * having the same compressed bytes, even when they got moved to some other position.
+ * <p>
+ * Memory usage does not depend on the file sizes: the index of the old version is limited to a fixed amount of blocks (bigger
+ * files are using bigger blocks), the new version is read as stream.
+ * <p>
+ * Format (all numbers big-endian): the magic "BDF1", the length of the old and of the new version (8 bytes each), followed by
+ * instructions starting with one byte: {@code 1} copies some range of the old version (offset and length, 8 and 4 bytes),
+ * {@code 2} inserts bytes (length as 4 bytes, followed by these bytes), {@code 0} ends the instructions.
+ *
+ * @author Danny Althoff
+ */
+public class BinaryDelta {
+
+    private static final int MAGIC = 0x42444631;
+
+    private static final int INSTRUCTION_END = 0;
+    private static final int INSTRUCTION_COPY = 1;
+    private static final int INSTRUCTION_INSERT = 2;
+
+    private static final int MIN_BLOCK_SIZE = 512;
+    // keeps the index of the old version at a few megabytes, bigger files are getting bigger blocks
+    private static final int MAX_INDEXED_BLOCKS = 256 * 1024;
+    // many equal blocks (like zero-filled areas) would make searching very slow
+    private static final int MAX_CANDIDATE_BLOCKS = 16;
+    // inserted bytes are written in parts, so only this part of the new version has to be kept in memory
+    private static final int MAX_INSERT_LENGTH = 64 * 1024;
+    private static final int MAX_COPY_LENGTH = Integer.MAX_VALUE - MAX_INSERT_LENGTH;
+
+    /**
+     * Writes the difference between both versions. The old version gets read twice (for indexing its blocks and for comparing
+     * matching ranges), the new version is read only once, so neither of them has to fit into memory.
+     *
+     * @param oldChannel  contains the old version
+     * @param oldStart    position of the old version inside the channel (e.g. the data of some stored ZIP-entry)
+     * @param oldLength
+     * @param newContent  the new version, does not get closed
+     * @param newLength
+     * @param target      receives the difference, does not get closed
+     *
+     * @throws IOException
+     */
+    public static void create(FileChannel oldChannel, long oldStart, long oldLength, InputStream newContent, long newLength, OutputStream target) throws IOException {
+        DataOutputStream deltaOutputStream = new DataOutputStream(target);
+        deltaOutputStream.writeInt(MAGIC);
+        deltaOutputStream.writeLong(oldLength);
+        deltaOutputStream.writeLong(newLength);
+        long readLength = new DeltaCreation(oldChannel, oldStart, oldLength, newContent, deltaOutputStream).run();
+        if( readLength != newLength ){
+            throw new IOException("New version was expected to have " + newLength + " bytes, but had " + readLength + " bytes.");
+        }
+        deltaOutputStream.writeByte(INSTRUCTION_END);
+        deltaOutputStream.flush();
+    }
+
+    /**
+     * Re-creates the new version by applying some difference to the old version.
+     *
+     * @param oldFile
+     * @param delta   gets read until the end of the instructions, does not get closed
+     * @param target  receives the new version, does not get closed
+     *
+     * @throws IOException when the difference does not belong to the old version
+     */
+    public static void apply(Path oldFile, InputStream delta, OutputStream target) throws IOException {
+        DataInputStream deltaInputStream = new DataInputStream(delta);
+        if( deltaInputStream.readInt() != MAGIC ){
+            throw new IOException("Not a binary delta.");
+        }
+        try(FileChannel oldFileChannel = FileChannel.open(oldFile, StandardOpenOption.READ)){
+            if( deltaInputStream.readLong() != oldFileChannel.size() ){
+                throw new IOException("Binary delta was not created for this file: " + oldFile);
+            }
+            long expectedLength = deltaInputStream.readLong();
+            long writtenLength = 0;
+            byte[] buffer = new byte[64 * 1024];
+            int instruction;
+            while( (instruction = deltaInputStream.readUnsignedByte()) != INSTRUCTION_END ){
+                switch(instruction) {
+                    case INSTRUCTION_COPY:
+                        long oldOffset = deltaInputStream.readLong();
+                        int copyLength = deltaInputStream.readInt();
+                        writtenLength += copyLength;
+                        while( copyLength > 0 ){
+                            ByteBuffer copyBuffer = ByteBuffer.wrap(buffer, 0, Math.min(buffer.length, copyLength));
+                            while( copyBuffer.hasRemaining() ){
+                                if( oldFileChannel.read(copyBuffer, oldOffset + copyBuffer.position()) < 0 ){
+                                    throw new IOException("Binary delta is copying beyond the end of the file: " + oldFile);
+                                }
+                            }
+                            target.write(buffer, 0, copyBuffer.position());
+                            oldOffset += copyBuffer.position();
+                            copyLength -= copyBuffer.position();
+                        }
+                        break;
+                    case INSTRUCTION_INSERT:
+                        int insertLength = deltaInputStream.readInt();
+                        writtenLength += insertLength;
+                        while( insertLength > 0 ){
+                            int read = Math.min(buffer.length, insertLength);
+                            deltaInputStream.readFully(buffer, 0, read);
+                            target.write(buffer, 0, read);
+                            insertLength -= read;
+                        }
+                        break;
+                    default:
+                        throw new IOException("Unknown instruction inside binary delta: " + instruction);
+                }
+            }
+            if( writtenLength != expectedLength ){
+                throw new IOException("Binary delta did not result in the expected length for file: " + oldFile);
+            }
+        }
+    }
+
+    private static void readFully(FileChannel channel, long position, byte[] buffer, int length) throws IOException {
+        ByteBuffer readBuffer = ByteBuffer.wrap(buffer, 0, length);
+        while( readBuffer.hasRemaining() ){
+            if( channel.read(readBuffer, position + readBuffer.position()) < 0 ){
+                throw new EOFException("Old version ended unexpectedly.");
+            }
+        }
+    }
+
+    /**
+     * Moves some window over the new version, writing the instructions while doing so.
+     */
+    private static class DeltaCreation {
+
+        private final FileChannel oldChannel;
+        private final long oldStart;
+        private final long oldLength;
+        private final InputStream newContent;
+        private final DataOutputStream deltaOutputStream;
+
+        private final int blockSize;
+        private final BlockIndex blockIndex;
+        private final byte[] oldBuffer;
+        private final CRC32 windowCrc = new CRC32();
+
+        // bytes of the new version starting at "literalStart" are not written yet
+        private final byte[] window;
+        private int windowEnd = 0;
+        private int position = 0;
+        private int literalStart = 0;
+        private long readLength = 0;
+        private boolean newContentEnded = false;
+
+        DeltaCreation(FileChannel oldChannel, long oldStart, long oldLength, InputStream newContent, DataOutputStream deltaOutputStream) throws IOException {
+            this.oldChannel = oldChannel;
+            this.oldStart = oldStart;
+            this.oldLength = oldLength;
+            this.newContent = newContent;
+            this.deltaOutputStream = deltaOutputStream;
+            this.blockSize = (int) Math.max(MIN_BLOCK_SIZE, (oldLength + MAX_INDEXED_BLOCKS - 1) / MAX_INDEXED_BLOCKS);
+            this.oldBuffer = new byte[Math.max(blockSize, MAX_INSERT_LENGTH)];
+            this.blockIndex = new BlockIndex(oldChannel, oldStart, oldLength, blockSize, oldBuffer);
+            this.window = new byte[MAX_INSERT_LENGTH + 2 * blockSize];
+        }
+
+        /**
+         * @return amount of bytes read from the new version
+         */
+        long run() throws IOException {
+            RollingChecksum rollingChecksum = null;
+            while( true ){
+                if( rollingChecksum == null ){
+                    if( blockIndex.isEmpty() || !fillWindow(position + blockSize) ){
+                        break;
+                    }
+                    rollingChecksum = new RollingChecksum(window, position, blockSize);
+                }
+                long matchingOffset = findMatchingBlock(rollingChecksum.getValue());
+                if( matchingOffset >= 0 ){
+                    writeCopy(matchingOffset);
+                    rollingChecksum = null;
+                    continue;
+                }
+                if( position - literalStart >= MAX_INSERT_LENGTH ){
+                    writeInsert();
+                }
+                if( !fillWindow(position + blockSize + 1) ){
+                    break;
+                }
+                rollingChecksum.roll(window[position], window[position + blockSize]);
+                position++;
+            }
+            // everything left has to be inserted
+            do{
+                position = Math.min(windowEnd, literalStart + MAX_INSERT_LENGTH);
+                writeInsert();
+            } while( position < windowEnd || fillWindow(windowEnd + 1) );
+            return readLength;
+        }
+
+        /**
+         * Reads more of the new version, dropping already written bytes from the window when needed.
+         *
+         * @param neededEnd
+         *
+         * @return false when the new version ended before
+         */
+        private boolean fillWindow(int neededEnd) throws IOException {
+            if( neededEnd > window.length ){
+                System.arraycopy(window, literalStart, window, 0, windowEnd - literalStart);
+                windowEnd -= literalStart;
+                position -= literalStart;
+                neededEnd -= literalStart;
+                literalStart = 0;
+            }
+            while( windowEnd < neededEnd && !newContentEnded ){
+                int read = newContent.read(window, windowEnd, window.length - windowEnd);
+                if( read < 0 ){
+                    newContentEnded = true;
+                } else {
+                    windowEnd += read;
+                    readLength += read;
+                }
+            }
+            return windowEnd >= neededEnd;
+        }
+
+        /**
+         * Candidates having the same rolling checksum get compared by their CRC-32 first, only then the old version gets read
+         * for comparing all bytes.
+         *
+         * @param rollingChecksum
+         *
+         * @return offset inside the old version, or -1 when no block matches
+         */
+        private long findMatchingBlock(int rollingChecksum) throws IOException {
+            int candidateBlock = blockIndex.getFirstBlock(rollingChecksum);
+            if( candidateBlock < 0 ){
+                return -1;
+            }
+            windowCrc.reset();
+            windowCrc.update(window, position, blockSize);
+            int crc = (int) windowCrc.getValue();
+            for( int checkedBlocks = 0; candidateBlock >= 0 && checkedBlocks < MAX_CANDIDATE_BLOCKS; checkedBlocks++ ){
+                long candidateOffset = (long) candidateBlock * blockSize;
+                if( blockIndex.getCrc(candidateBlock) == crc ){
+                    readFully(oldChannel, oldStart + candidateOffset, oldBuffer, blockSize);
+                    if( countMatchingBytes(position, 0, blockSize) == blockSize ){
+                        return candidateOffset;
+                    }
+                }
+                candidateBlock = blockIndex.getNextBlock(candidateBlock);
+            }
+            return -1;
+        }
+
+        private void writeCopy(long oldOffset) throws IOException {
+            int length = blockSize;
+            // make the matching range as big as possible, in front of the block only not written bytes can be used
+            int maxBackwardLength = (int) Math.min(position - literalStart, oldOffset);
+            if( maxBackwardLength > 0 ){
+                readFully(oldChannel, oldStart + oldOffset - maxBackwardLength, oldBuffer, maxBackwardLength);
+                int matchingLength = 0;
+                while( matchingLength < maxBackwardLength && window[position - 1 - matchingLength] == oldBuffer[maxBackwardLength - 1 - matchingLength] ){
+                    matchingLength++;
+                }
+                position -= matchingLength;
+                oldOffset -= matchingLength;
+                length += matchingLength;
+            }
+            writeInsert();
+            position += length;
+            literalStart = position;
+            while( length < MAX_COPY_LENGTH && oldOffset + length < oldLength && fillWindow(position + 1) ){
+                int comparableLength = (int) Math.min(Math.min(windowEnd - position, oldBuffer.length), Math.min(oldLength - oldOffset - length, MAX_COPY_LENGTH - length));
+                readFully(oldChannel, oldStart + oldOffset + length, oldBuffer, comparableLength);
+                int matchingLength = countMatchingBytes(position, 0, comparableLength);
+                position += matchingLength;
+                literalStart = position;
+                length += matchingLength;
+                if( matchingLength < comparableLength ){
+                    break;
+                }
+            }
+            deltaOutputStream.writeByte(INSTRUCTION_COPY);
+            deltaOutputStream.writeLong(oldOffset);
+            deltaOutputStream.writeInt(length);
+        }
+
+        private int countMatchingBytes(int windowOffset, int oldBufferOffset, int length) {
+            int matchingLength = 0;
+            while( matchingLength < length && window[windowOffset + matchingLength] == oldBuffer[oldBufferOffset + matchingLength] ){
+                matchingLength++;
+            }
+            return matchingLength;
+        }
+
+        /**
+         * Writes all bytes of the window in front of the current position.
+         */
+        private void writeInsert() throws IOException {
+            int length = position - literalStart;
+            if( length > 0 ){
+                deltaOutputStream.writeByte(INSTRUCTION_INSERT);
+                deltaOutputStream.writeInt(length);
+                deltaOutputStream.write(window, literalStart, length);
+            }
+            literalStart = position;
+        }
+    }
+
+    /**
+     * All complete blocks of the old version, found by their rolling checksum. Uses plain arrays (open addressing, blocks having the
+     * same rolling checksum are chained), as it gets queried for nearly every byte of the new version.
+     */
+    private static class BlockIndex {
+
+        private final int[] slotChecksums;
+        // first block of that slot plus one, zero marks some empty slot
+        private final int[] slotFirstBlocks;
+        private final int[] nextBlocks;
+        private final int[] blockCrcs;
+        private final int slotMask;
+
+        BlockIndex(FileChannel oldChannel, long oldStart, long oldLength, int blockSize, byte[] buffer) throws IOException {
+            int blockCount = (int) (oldLength / blockSize);
+            int[] blockChecksums = new int[blockCount];
+            blockCrcs = new int[blockCount];
+            CRC32 blockCrc = new CRC32();
+            int blocksPerRead = buffer.length / blockSize;
+            for( int block = 0; block < blockCount; block += blocksPerRead ){
+                int readBlocks = Math.min(blocksPerRead, blockCount - block);
+                readFully(oldChannel, oldStart + (long) block * blockSize, buffer, readBlocks * blockSize);
+                for( int readBlock = 0; readBlock < readBlocks; readBlock++ ){
+                    blockChecksums[block + readBlock] = new RollingChecksum(buffer, readBlock * blockSize, blockSize).getValue();
+                    blockCrc.reset();
+                    blockCrc.update(buffer, readBlock * blockSize, blockSize);
+                    blockCrcs[block + readBlock] = (int) blockCrc.getValue();
+                }
+            }
+
+            // at most half of the slots are used
+            int slotCount = Integer.highestOneBit(Math.max(1, blockCount) * 2 - 1) << 1;
+            slotChecksums = new int[slotCount];
+            slotFirstBlocks = new int[slotCount];
+            nextBlocks = new int[blockCount];
+            slotMask = slotCount - 1;
+            // earlier blocks are preferred
+            for( int block = blockCount - 1; block >= 0; block-- ){
+                int slot = findSlot(blockChecksums[block]);
+                slotChecksums[slot] = blockChecksums[block];
+                nextBlocks[block] = slotFirstBlocks[slot] - 1;
+                slotFirstBlocks[slot] = block + 1;
+            }
+        }
+
+        boolean isEmpty() {
+            return nextBlocks.length == 0;
+        }
+
+        /**
+         * @param checksum
+         *
+         * @return first block having this rolling checksum, or -1
+         */
+        int getFirstBlock(int checksum) {
+            return slotFirstBlocks[findSlot(checksum)] - 1;
+        }
+
+        int getNextBlock(int block) {
+            return nextBlocks[block];
+        }
+
+        int getCrc(int block) {
+            return blockCrcs[block];
+        }
+
+        private int findSlot(int checksum) {
+            int hash = checksum * 0x9E3779B9;
+            int slot = (hash ^ (hash >>> 16)) & slotMask;
+            while( slotFirstBlocks[slot] != 0 && slotChecksums[slot] != checksum ){
+                slot = (slot + 1) & slotMask;
+            }
+            return slot;
+        }
+    }
+
+    /**
+     * Checksum of one block, which can be moved by one byte without reading the whole block again (same as used by rsync).
+     */
+    private static class RollingChecksum {
+
+        private final int blockSize;
+        private int sum;
+        private int weightedSum;
+
+        RollingChecksum(byte[] content, int offset, int blockSize) {
+            this.blockSize = blockSize;
+            for( int index = 0; index < blockSize; index++ ){
+                sum += content[offset + index] & 0xFF;
+                weightedSum += (blockSize - index) * (content[offset + index] & 0xFF);
+            }
+        }
+
+        void roll(byte removedByte, byte addedByte) {
+            sum += (addedByte & 0xFF) - (removedByte & 0xFF);
+            weightedSum += sum - blockSize * (removedByte & 0xFF);
+        }
+
+        int getValue() {
+            return (weightedSum << 16) | (sum & 0xFFFF);
+        }
+    }
+}
@@ -0,0 +1,223 @@
+/*
+ * Copyright 2018 Danny Althoff
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.dynamicfiles.projects.maven.distributionbundleplugin;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Local cache of finished java-app bundles. Each entry is identified by the fingerprint of all bundling inputs (see
+ * {@link BundleFingerprint}) and contains the output folder, the packed bundle (when created) and the results recorded while
+ * bundling (like the detected main-class). Like the {@link SignedJarCache}, the last-modified time of each entry gets updated on
+ * every hit, making it possible to evict the least recently used entries when the cache gets too big.
+ *
+ * @author Danny Althoff
+ */
+public class BundleCache {
+
+    private static final String OUTPUT_FOLDER_NAME = "output";
+    private static final String PACKED_BUNDLE_NAME = "bundle.zip";
+    private static final String RESULTS_FILE_NAME = "results.properties";
+    private static final String TEMPORARY_ENTRY_SUFFIX = ".tmp";
+
+    private final Path cacheFolder;
+    private final long maxSizeInBytes;
+    private final InternalUtils internalUtils = new InternalUtils();
+
+    public BundleCache(Path cacheFolder, long maxSizeInBytes) throws IOException {
+        this.cacheFolder = cacheFolder;
+        this.maxSizeInBytes = maxSizeInBytes;
+        Files.createDirectories(cacheFolder);
+    }
+
+    /**
+     * Replaces the output folder and the packed bundle with the cached ones, when present.
+     *
+     * @param fingerprint
+     * @param outputFolder gets replaced
+     * @param packedBundle gets replaced, can be null when no packed bundle is created
+     * @param results      receives the results recorded while bundling
+     *
+     * @return true on cache-hit
+     *
+     * @throws IOException
+     */
+    public boolean restore(String fingerprint, Path outputFolder, Path packedBundle, Properties results) throws IOException {
+        Path cachedEntry = cacheFolder.resolve(fingerprint);
+        Path cachedOutputFolder = cachedEntry.resolve(OUTPUT_FOLDER_NAME);
+        Path cachedPackedBundle = cachedEntry.resolve(PACKED_BUNDLE_NAME);
+        Path cachedResults = cachedEntry.resolve(RESULTS_FILE_NAME);
+        if( !Files.isDirectory(cachedOutputFolder) || !Files.isRegularFile(cachedResults) || (packedBundle != null && !Files.isRegularFile(cachedPackedBundle)) ){
+            return false;
+        }
+        try{
+            Properties cachedResultProperties = new Properties();
+            try(InputStream resultsInputStream = Files.newInputStream(cachedResults)){
+                cachedResultProperties.load(resultsInputStream);
+            }
+            if( Files.exists(outputFolder) && internalUtils.deleteRecursive(outputFolder) ){
+                throw new IOException("Could not remove output folder: " + outputFolder);
+            }
+            if( internalUtils.copyRecursive(cachedOutputFolder, outputFolder) ){
+                throw new IOException("Could not copy cached output folder: " + cachedOutputFolder);
+            }
+            if( packedBundle != null ){
+                Files.copy(cachedPackedBundle, packedBundle, StandardCopyOption.REPLACE_EXISTING);
+            }
+            results.putAll(cachedResultProperties);
+        } catch(IOException ex){
+            // might got evicted by some other build in the meantime
+            if( !Files.isDirectory(cachedEntry) ){
+                return false;
+            }
+            throw ex;
+        }
+        // mark as recently used
+        try{
+            Files.setLastModifiedTime(cachedEntry, FileTime.fromMillis(System.currentTimeMillis()));
+        } catch(IOException ex){
+            // not important
+        }
+        return true;
+    }
+
+    /**
+     * Stores some freshly created bundle.
+     *
+     * @param fingerprint
+     * @param outputFolder
+     * @param packedBundle can be null when no packed bundle was created
+     * @param results      the results recorded while bundling
+     *
+     * @throws IOException
+     */
+    public void store(String fingerprint, Path outputFolder, Path packedBundle, Properties results) throws IOException {
+        Path cachedEntry = cacheFolder.resolve(fingerprint);
+        if( Files.isDirectory(cachedEntry) ){
+            // already stored by some other build
+            return;
+        }
+        // other builds might use the same cache, so never show some partial written entry
+        Path temporaryEntry = Files.createTempDirectory(cacheFolder, fingerprint + TEMPORARY_ENTRY_SUFFIX);
+        try{
+            if( internalUtils.copyRecursive(outputFolder, temporaryEntry.resolve(OUTPUT_FOLDER_NAME)) ){
+                throw new IOException("Could not copy output folder into bundle cache: " + outputFolder);
+            }
+            if( packedBundle != null ){
+                Files.copy(packedBundle, temporaryEntry.resolve(PACKED_BUNDLE_NAME));
+            }
+            try(OutputStream resultsOutputStream = Files.newOutputStream(temporaryEntry.resolve(RESULTS_FILE_NAME))){
+                results.store(resultsOutputStream, null);
+            }
+            try{
+                Files.move(temporaryEntry, cachedEntry, StandardCopyOption.ATOMIC_MOVE);
+            } catch(AtomicMoveNotSupportedException ex){
+                Files.move(temporaryEntry, cachedEntry);
+            }
+        } catch(FileAlreadyExistsException ex){
+            // some other build was faster
+        } catch(IOException ex){
+            if( !Files.isDirectory(cachedEntry) ){
+                throw ex;
+            }
+            // some other build was faster (non-empty target folder)
+        } finally{
+            if( Files.exists(temporaryEntry) ){
+                internalUtils.deleteRecursive(temporaryEntry);
+            }
+        }
+    }
+
+    /**
+     * Removes least recently used entries until the cache is below the configured size.
+     *
+     * @return amount of removed entries
+     *
+     * @throws IOException
+     */
+    public int evict() throws IOException {
+        Map<Path, FileTime> lastUsedTimes = new HashMap<>();
+        Map<Path, Long> entrySizes = new HashMap<>();
+        long cacheSize = 0;
+        try(DirectoryStream<Path> cacheFolderStream = Files.newDirectoryStream(cacheFolder, Files::isDirectory)){
+            for( Path cachedEntry : cacheFolderStream ){
+                // entries getting stored right now are not complete
+                if( cachedEntry.getFileName().toString().contains(TEMPORARY_ENTRY_SUFFIX) ){
+                    continue;
+                }
+                try{
+                    lastUsedTimes.put(cachedEntry, Files.getLastModifiedTime(cachedEntry));
+                    long entrySize = getFolderSize(cachedEntry);
+                    entrySizes.put(cachedEntry, entrySize);
+                    cacheSize += entrySize;
+                } catch(NoSuchFileException ex){
+                    // got evicted by some other build in the meantime
+                    lastUsedTimes.remove(cachedEntry);
+                }
+            }
+        }
+        if( cacheSize <= maxSizeInBytes ){
+            return 0;
+        }
+        List<Path> leastRecentlyUsedFirst = new ArrayList<>(lastUsedTimes.keySet());
+        leastRecentlyUsedFirst.sort(Comparator.comparing(lastUsedTimes::get));
+        int removedEntries = 0;
+        for( Path cachedEntry : leastRecentlyUsedFirst ){
+            if( cacheSize <= maxSizeInBytes ){
+                break;
+            }
+            if( !internalUtils.deleteRecursive(cachedEntry) ){
+                cacheSize -= entrySizes.get(cachedEntry);
+                removedEntries++;
+            } else if( !Files.exists(cachedEntry) ){
+                // got evicted by some other build in the meantime
+                cacheSize -= entrySizes.get(cachedEntry);
+            }
+        }
+        return removedEntries;
+    }
+
+    private long getFolderSize(Path folder) throws IOException {
+        AtomicLong folderSize = new AtomicLong();
+        Files.walkFileTree(folder, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                folderSize.addAndGet(attrs.size());
+                return FileVisitResult.CONTINUE;
+            }
+        });
+        return folderSize.get();
+    }
+}
@@ -0,0 +1,153 @@
+/*
+ * Copyright 2018 Danny Althoff
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.dynamicfiles.projects.maven.distributionbundleplugin;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * SHA-256 fingerprint of all inputs of some bundle. Every value gets added together with its name, files are identified by their
+ * content, folders by the relative paths and the content of all their files. Absolute paths are never part of the fingerprint, so
+ * the same project checked out at different locations results in the same fingerprint.
+ *
+ * @author Danny Althoff
+ */
+public class BundleFingerprint {
+
+    private final MessageDigest sha256Digest;
+    private final byte[] buffer = new byte[64 * 1024];
+
+    public BundleFingerprint() throws IOException {
+        try{
+            sha256Digest = MessageDigest.getInstance("SHA-256");
+        } catch(NoSuchAlgorithmException ex){
+            // every JRE has to provide SHA-256
+            throw new IOException(ex);
+        }
+    }
+
+    /**
+     * @param name
+     * @param value can be null
+     */
+    public void addValue(String name, String value) {
+        update(name);
+        update(value == null ? "\u0000null" : value);
+    }
+
+    /**
+     * @param name
+     * @param file
+     *
+     * @throws IOException
+     */
+    public void addFile(String name, Path file) throws IOException {
+        update(name);
+        update(String.valueOf(Files.size(file)));
+        try(InputStream fileInputStream = Files.newInputStream(file, StandardOpenOption.READ)){
+            int read;
+            while( (read = fileInputStream.read(buffer)) != -1 ){
+                sha256Digest.update(buffer, 0, read);
+            }
+        }
+    }
+
+    /**
+     * Adds all files of that folder, a missing folder is recorded as being empty.
+     *
+     * @param name
+     * @param folder
+     *
+     * @throws IOException
+     */
+    public void addFolder(String name, Path folder) throws IOException {
+        update(name);
+        if( !Files.isDirectory(folder) ){
+            return;
+        }
+        List<Path> files;
+        try(Stream<Path> folderStream = Files.walk(folder)){
+            files = folderStream.filter(Files::isRegularFile).sorted().collect(Collectors.toList());
+        }
+        for( Path file : files ){
+            addFile(folder.relativize(file).toString().replace("\\", "/"), file);
+        }
+    }
+
+    /**
+     * Adds the size and the last-modified time of that file, without reading its content.
+     *
+     * @param name
+     * @param file
+     *
+     * @throws IOException
+     */
+    public void addFileListing(String name, Path file) throws IOException {
+        update(name);
+        BasicFileAttributes fileAttributes = Files.readAttributes(file, BasicFileAttributes.class);
+        update(String.valueOf(fileAttributes.size()));
+        update(String.valueOf(fileAttributes.lastModifiedTime().toMillis()));
+    }
+
+    /**
+     * Adds the relative paths, sizes and last-modified times of all files of that folder, without reading their content. A missing
+     * folder is recorded as being empty.
+     *
+     * @param name
+     * @param folder
+     *
+     * @throws IOException
+     */
+    public void addFolderListing(String name, Path folder) throws IOException {
+        update(name);
+        if( !Files.isDirectory(folder) ){
+            return;
+        }
+        List<Path> files;
+        try(Stream<Path> folderStream = Files.walk(folder)){
+            files = folderStream.filter(Files::isRegularFile).sorted().collect(Collectors.toList());
+        }
+        for( Path file : files ){
+            addFileListing(folder.relativize(file).toString().replace("\\", "/"), file);
+        }
+    }
+
+    /**
+     * @return fingerprint as hex-string, finishes this fingerprint
+     */
+    public String toHexString() {
+        StringBuilder fingerprintAsHex = new StringBuilder();
+        for( byte digestByte : sha256Digest.digest() ){
+            fingerprintAsHex.append(String.format("%02x", digestByte));
+        }
+        return fingerprintAsHex.toString();
+    }
+
+    private void update(String value) {
+        sha256Digest.update(value.getBytes(StandardCharsets.UTF_8));
+        sha256Digest.update((byte) 0);
+    }
+}
@@ -0,0 +1,211 @@
+/*
+ * Copyright 2018 Danny Althoff
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.dynamicfiles.projects.maven.distributionbundleplugin;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Inventory of all files inside some bundle, containing one line per file: the SHA-256 checksum, the size and the relative path
+ * (using normal slashes), separated by one space and sorted by the path.
+ * <p>
+ * Checksums are recorded while the files are written into the bundle, so creating the inventory does not require reading the
+ * bundle again. Files not recorded (or changed after being recorded, like signed jar-files) are read when writing the inventory.
+ * Recording is thread-safe, making it possible to copy files on multiple threads.
+ *
+ * @author Danny Althoff
+ */
+public class BundleManifest {
+
+    public static final String FILENAME = "bundle-manifest";
+
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
+    private static final ThreadLocal<byte[]> COPY_BUFFERS = ThreadLocal.withInitial(() -> new byte[COPY_BUFFER_SIZE]);
+
+    private final Path bundleFolder;
+    private final Map<Path, RecordedFile> recordedFiles = new ConcurrentHashMap<>();
+
+    /**
+     * @param bundleFolder root of the bundle, all paths are written relative to this folder
+     */
+    public BundleManifest(Path bundleFolder) {
+        this.bundleFolder = bundleFolder.toAbsolutePath().normalize();
+    }
+
+    /**
+     * @return new digest for recording some file
+     */
+    public static MessageDigest createDigest() {
+        try{
+            return MessageDigest.getInstance("SHA-256");
+        } catch(NoSuchAlgorithmException ex){
+            // every JRE has to provide SHA-256
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    /**
+     * Copies some file into the bundle while calculating its checksum, keeping the last-modified time and the permissions. An
+     * existing target file gets replaced, not overwritten (so some existing link never modifies the file it points to).
+     *
+     * @param sourceFile
+     * @param targetFile
+     *
+     * @return amount of copied bytes
+     *
+     * @throws IOException
+     */
+    public long copy(Path sourceFile, Path targetFile) throws IOException {
+        MessageDigest digest = createDigest();
+        byte[] buffer = COPY_BUFFERS.get();
+        long copiedBytes = 0;
+        Files.deleteIfExists(targetFile);
+        try(InputStream sourceInputStream = Files.newInputStream(sourceFile, StandardOpenOption.READ);
+                OutputStream targetOutputStream = Files.newOutputStream(targetFile, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)){
+            int read;
+            while( (read = sourceInputStream.read(buffer)) != -1 ){
+                digest.update(buffer, 0, read);
+                targetOutputStream.write(buffer, 0, read);
+                copiedBytes += read;
+            }
+        }
+        try{
+            Files.setPosixFilePermissions(targetFile, Files.getPosixFilePermissions(sourceFile));
+        } catch(UnsupportedOperationException ex){
+            // no permissions available (like on Windows)
+        }
+        Files.setLastModifiedTime(targetFile, Files.getLastModifiedTime(sourceFile));
+        record(targetFile, digest);
+        return copiedBytes;
+    }
+
+    /**
+     * Records some file which was written using the given digest.
+     *
+     * @param file   file inside the bundle, has to be completely written
+     * @param digest digest updated with all bytes of that file, gets finished
+     *
+     * @throws IOException
+     */
+    public void record(Path file, MessageDigest digest) throws IOException {
+        BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        recordedFiles.put(file.toAbsolutePath().normalize(), new RecordedFile(toHexString(digest.digest()), attributes.size(), attributes.lastModifiedTime()));
+    }
+
+    /**
+     * Removes some recorded file, required before changing that file.
+     *
+     * @param file
+     */
+    public void forget(Path file) {
+        recordedFiles.remove(file.toAbsolutePath().normalize());
+    }
+
+    /**
+     * Writes the inventory of all files currently existing inside the bundle folder.
+     *
+     * @return amount of files not recorded, which had to be read for calculating their checksum
+     *
+     * @throws IOException
+     */
+    public int write() throws IOException {
+        Path manifestFile = bundleFolder.resolve(FILENAME);
+        // sorted by the relative path
+        Map<String, String> lines = new TreeMap<>();
+        AtomicInteger filesRead = new AtomicInteger();
+        Files.walkFileTree(bundleFolder, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                if( file.equals(manifestFile) || !Files.isRegularFile(file) ){
+                    return FileVisitResult.CONTINUE;
+                }
+                // symbolic links are resolved
+                BasicFileAttributes fileAttributes = Files.readAttributes(file, BasicFileAttributes.class);
+                RecordedFile recordedFile = recordedFiles.get(file);
+                if( recordedFile == null || recordedFile.size != fileAttributes.size() || !recordedFile.lastModifiedTime.equals(fileAttributes.lastModifiedTime()) ){
+                    recordedFile = new RecordedFile(calculateChecksum(file), fileAttributes.size(), fileAttributes.lastModifiedTime());
+                    filesRead.incrementAndGet();
+                }
+                String relativePath = bundleFolder.relativize(file).toString().replace("\\", "/");
+                lines.put(relativePath, recordedFile.checksum + " " + recordedFile.size + " " + relativePath + "\n");
+                return FileVisitResult.CONTINUE;
+            }
+        });
+        try(OutputStream manifestOutputStream = Files.newOutputStream(manifestFile, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)){
+            for( String line : lines.values() ){
+                manifestOutputStream.write(line.getBytes(StandardCharsets.UTF_8));
+            }
+        }
+        return filesRead.get();
+    }
+
+    /**
+     * Reads some file for calculating its checksum, using the same format as written into the inventory.
+     *
+     * @param file
+     *
+     * @return SHA-256 checksum as hex-string
+     *
+     * @throws IOException
+     */
+    public static String calculateChecksum(Path file) throws IOException {
+        MessageDigest digest = createDigest();
+        byte[] buffer = COPY_BUFFERS.get();
+        try(InputStream fileInputStream = Files.newInputStream(file, StandardOpenOption.READ)){
+            int read;
+            while( (read = fileInputStream.read(buffer)) != -1 ){
+                digest.update(buffer, 0, read);
+            }
+        }
+        return toHexString(digest.digest());
+    }
+
+    private static String toHexString(byte[] digest) {
+        StringBuilder digestAsHex = new StringBuilder();
+        for( byte digestByte : digest ){
+            digestAsHex.append(String.format("%02x", digestByte));
+        }
+        return digestAsHex.toString();
+    }
+
+    private static class RecordedFile {
+
+        private final String checksum;
+        private final long size;
+        private final FileTime lastModifiedTime;
+
+        RecordedFile(String checksum, long size, FileTime lastModifiedTime) {
+            this.checksum = checksum;
+            this.size = size;
+            this.lastModifiedTime = lastModifiedTime;
+        }
+    }
+}
@@ -0,0 +1,285 @@
+/*
+ * Copyright 2018 Danny Althoff
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.dynamicfiles.projects.maven.distributionbundleplugin;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Records wall time, touched files, read and written bytes and allocated bytes for each phase of some mojo execution. Work done
+ * by worker threads gets added to the phase which is currently running.
+ *
+ * Allocated bytes are only available on JVMs supporting "com.sun.management.ThreadMXBean", otherwise these are reported as -1.
+ * Each phase is emitted as Java Flight Recorder event too.
+ *
+ * @author Danny Althoff
+ */
+public class BundlingMetrics {
+
+    private static final String PROPERTIES_PREFIX = "metrics.";
+
+    private final String goal;
+    private final List<PhaseMetrics> phases = Collections.synchronizedList(new ArrayList<>());
+    private volatile PhaseMetrics currentPhase = null;
+    private long currentPhaseStartNanos;
+    private long currentPhaseStartAllocatedBytes;
+    private FlightRecorderEvents.TimedEvent currentPhaseEvent;
+
+    /**
+     * @param goal the goal of the mojo being measured, used for the flight recorder events
+     */
+    public BundlingMetrics(String goal) {
+        this.goal = goal;
+    }
+
+    /**
+     * Ends the currently running phase (if any) and starts a new one.
+     *
+     * @param name
+     */
+    public void startPhase(String name) {
+        endPhase();
+        PhaseMetrics phase = new PhaseMetrics(name);
+        phases.add(phase);
+        currentPhaseStartAllocatedBytes = getAllocatedBytesOfCurrentThread();
+        currentPhaseStartNanos = System.nanoTime();
+        currentPhaseEvent = FlightRecorderEvents.begin(FlightRecorderEvents.PHASE);
+        currentPhase = phase;
+    }
+
+    public void endPhase() {
+        PhaseMetrics phase = currentPhase;
+        if( phase == null ){
+            return;
+        }
+        currentPhase = null;
+        phase.wallTimeNanos = System.nanoTime() - currentPhaseStartNanos;
+        addAllocatedBytes(phase, currentPhaseStartAllocatedBytes, getAllocatedBytesOfCurrentThread());
+        currentPhaseEvent.commit(goal, phase.getName());
+    }
+
+    /**
+     * Counts some file being read, e.g. the source of some copy-operation.
+     *
+     * @param bytes amount of read bytes
+     */
+    public void addFileRead(long bytes) {
+        PhaseMetrics phase = currentPhase;
+        if( phase != null ){
+            phase.filesTouched.incrementAndGet();
+            phase.bytesRead.addAndGet(bytes);
+        }
+    }
+
+    /**
+     * Counts some file being written, e.g. the target of some copy-operation.
+     *
+     * @param bytes amount of written bytes
+     */
+    public void addFileWritten(long bytes) {
+        PhaseMetrics phase = currentPhase;
+        if( phase != null ){
+            phase.filesTouched.incrementAndGet();
+            phase.bytesWritten.addAndGet(bytes);
+        }
+    }
+
+    /**
+     * Counts some file being checked without reading its whole content (e.g. only metadata or some index).
+     */
+    public void addFileTouched() {
+        PhaseMetrics phase = currentPhase;
+        if( phase != null ){
+            phase.filesTouched.incrementAndGet();
+        }
+    }
+
+    /**
+     * Wraps some task running inside a worker thread, adding its allocated bytes to the phase being active while the task was created.
+     *
+     * @param task
+     *
+     * @return measured task
+     */
+    public Runnable measureAllocations(Runnable task) {
+        PhaseMetrics phase = currentPhase;
+        if( phase == null ){
+            return task;
+        }
+        return () -> {
+            long allocatedBytesBefore = getAllocatedBytesOfCurrentThread();
+            try{
+                task.run();
+            } finally{
+                addAllocatedBytes(phase, allocatedBytesBefore, getAllocatedBytesOfCurrentThread());
+            }
+        };
+    }
+
+    public List<PhaseMetrics> getPhases() {
+        synchronized(phases){
+            return new ArrayList<>(phases);
+        }
+    }
+
+    /**
+     * Adds all finished phases to the given properties, using keys like "metrics.&lt;phase&gt;.wallTimeMillis".
+     *
+     * @param properties
+     */
+    public void writeTo(Properties properties) {
+        getPhases().stream().filter(phase -> phase != currentPhase).forEach(phase -> {
+            String prefix = PROPERTIES_PREFIX + phase.getName() + ".";
+            properties.put(prefix + "wallTimeMillis", String.valueOf(phase.getWallTimeMillis()));
+            properties.put(prefix + "filesTouched", String.valueOf(phase.getFilesTouched()));
+            properties.put(prefix + "bytesRead", String.valueOf(phase.getBytesRead()));
+            properties.put(prefix + "bytesWritten", String.valueOf(phase.getBytesWritten()));
+            properties.put(prefix + "allocatedBytes", String.valueOf(phase.getAllocatedBytes()));
+        });
+    }
+
+    /**
+     * Writes all finished phases as JSON-file.
+     *
+     * @param reportFile
+     * @param executionId
+     *
+     * @throws IOException
+     */
+    public void writeJsonReport(Path reportFile, String executionId) throws IOException {
+        List<PhaseMetrics> finishedPhases = new ArrayList<>(getPhases());
+        finishedPhases.remove(currentPhase);
+        long totalWallTimeMillis = finishedPhases.stream().mapToLong(PhaseMetrics::getWallTimeMillis).sum();
+
+        StringBuilder json = new StringBuilder();
+        json.append("{\n");
+        json.append("  \"executionId\": \"").append(escapeJson(executionId)).append("\",\n");
+        json.append("  \"totalWallTimeMillis\": ").append(totalWallTimeMillis).append(",\n");
+        json.append("  \"phases\": [");
+        for( int i = 0; i < finishedPhases.size(); i++ ){
+            PhaseMetrics phase = finishedPhases.get(i);
+            json.append(i == 0 ? "\n" : ",\n");
+            json.append("    {\n");
+            json.append("      \"name\": \"").append(escapeJson(phase.getName())).append("\",\n");
+            json.append("      \"wallTimeMillis\": ").append(phase.getWallTimeMillis()).append(",\n");
+            json.append("      \"filesTouched\": ").append(phase.getFilesTouched()).append(",\n");
+            json.append("      \"bytesRead\": ").append(phase.getBytesRead()).append(",\n");
+            json.append("      \"bytesWritten\": ").append(phase.getBytesWritten()).append(",\n");
+            json.append("      \"allocatedBytes\": ").append(phase.getAllocatedBytes()).append("\n");
+            json.append("    }");
+        }
+        json.append(finishedPhases.isEmpty() ? "]\n" : "\n  ]\n");
+        json.append("}\n");
+        Files.createDirectories(reportFile.getParent());
+        Files.write(reportFile, json.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void addAllocatedBytes(PhaseMetrics phase, long allocatedBytesBefore, long allocatedBytesAfter) {
+        if( allocatedBytesBefore < 0 || allocatedBytesAfter < 0 ){
+            phase.allocatedBytesSupported = false;
+            return;
+        }
+        phase.allocatedBytes.addAndGet(allocatedBytesAfter - allocatedBytesBefore);
+    }
+
+    private static long getAllocatedBytesOfCurrentThread() {
+        ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+        try{
+            if( threadMXBean instanceof com.sun.management.ThreadMXBean ){
+                com.sun.management.ThreadMXBean extendedThreadMXBean = (com.sun.management.ThreadMXBean) threadMXBean;
+                if( extendedThreadMXBean.isThreadAllocatedMemorySupported() && extendedThreadMXBean.isThreadAllocatedMemoryEnabled() ){
+                    return extendedThreadMXBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+                }
+            }
+        } catch(UnsupportedOperationException ex){
+            // NO-OP
+        }
+        return -1;
+    }
+
+    private static String escapeJson(String value) {
+        StringBuilder escaped = new StringBuilder();
+        for( char c : value.toCharArray() ){
+            switch(c) {
+                case '"':
+                    escaped.append("\\\"");
+                    break;
+                case '\\':
+                    escaped.append("\\\\");
+                    break;
+                default:
+                    if( c < 0x20 ){
+                        escaped.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        escaped.append(c);
+                    }
+            }
+        }
+        return escaped.toString();
+    }
+
+    public static class PhaseMetrics {
+
+        private final String name;
+        private volatile long wallTimeNanos = 0;
+        private final AtomicLong filesTouched = new AtomicLong();
+        private final AtomicLong bytesRead = new AtomicLong();
+        private final AtomicLong bytesWritten = new AtomicLong();
+        private final AtomicLong allocatedBytes = new AtomicLong();
+        private volatile boolean allocatedBytesSupported = true;
+
+        PhaseMetrics(String name) {
+            this.name = name;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public long getWallTimeMillis() {
+            return TimeUnit.NANOSECONDS.toMillis(wallTimeNanos);
+        }
+
+        public long getFilesTouched() {
+            return filesTouched.get();
+        }
+
+        public long getBytesRead() {
+            return bytesRead.get();
+        }
+
+        public long getBytesWritten() {
+            return bytesWritten.get();
+        }
+
+        /**
+         * @return allocated bytes of the mojo-thread and all worker threads, or -1 when not supported by the used JVM
+         */
+        public long getAllocatedBytes() {
+            return allocatedBytesSupported ? allocatedBytes.get() : -1;
+        }
+    }
+}
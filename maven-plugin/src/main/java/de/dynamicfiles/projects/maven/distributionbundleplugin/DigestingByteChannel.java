@@ -0,0 +1,73 @@
+/*
+ * Copyright 2018 Danny Althoff
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.dynamicfiles.projects.maven.distributionbundleplugin;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.security.MessageDigest;
+import java.util.List;
+
+/**
+ * Updates some message digests with every byte written to the target channel, so the checksums of some created file are known
+ * without reading that file again.
+ * <p>
+ * Transferring from some file channel into this channel (see {@link java.nio.channels.FileChannel#transferTo}) can not be done by
+ * the operating system anymore, the JVM falls back to copying through some buffer instead, which makes all bytes pass this channel.
+ *
+ * @author Danny Althoff
+ */
+public class DigestingByteChannel implements WritableByteChannel {
+
+    private final WritableByteChannel target;
+    private final List<MessageDigest> digests;
+
+    /**
+     * @param target  channel to write to, gets closed when closing this channel
+     * @param digests all digests are updated with the written bytes
+     */
+    public DigestingByteChannel(WritableByteChannel target, List<MessageDigest> digests) {
+        this.target = target;
+        this.digests = digests;
+    }
+
+    @Override
+    public int write(ByteBuffer source) throws IOException {
+        int startPosition = source.position();
+        int written = target.write(source);
+        if( written > 0 ){
+            ByteBuffer writtenBytes = source.duplicate();
+            writtenBytes.position(startPosition);
+            writtenBytes.limit(startPosition + written);
+            for( MessageDigest digest : digests ){
+                writtenBytes.mark();
+                digest.update(writtenBytes);
+                writtenBytes.reset();
+            }
+        }
+        return written;
+    }
+
+    @Override
+    public boolean isOpen() {
+        return target.isOpen();
+    }
+
+    @Override
+    public void close() throws IOException {
+        target.close();
+    }
+}
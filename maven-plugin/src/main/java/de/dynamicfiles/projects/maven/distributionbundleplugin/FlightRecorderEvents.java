@@ -0,0 +1,194 @@
+/*
+ * Copyright 2018 Danny Althoff
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.dynamicfiles.projects.maven.distributionbundleplugin;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Custom Java Flight Recorder events, showing the work of this plugin on the timeline of some recording (e.g. when running maven
+ * with "-XX:StartFlightRecording").
+ *
+ * As this plugin still supports JDK 8 without JFR, the event types are created via "jdk.jfr.EventFactory" using reflection. When JFR
+ * is not available or the event type is not enabled in any running recording, no event object gets created at all.
+ *
+ * @author Danny Althoff
+ */
+public class FlightRecorderEvents {
+
+    private static final String EVENT_NAME_PREFIX = "de.dynamicfiles.distbundle.";
+    private static final String[] EVENT_CATEGORY = new String[]{"Maven", "Distribution Bundle Plugin"};
+
+    private static final TimedEvent NO_OP_EVENT = new TimedEvent(null, null);
+
+    public static final Kind PHASE = new Kind("Phase", "Bundling Phase", new String[]{"goal", "phase"}, new Class[]{String.class, String.class});
+    public static final Kind FILE_COPY = new Kind("FileCopy", "File Copy", new String[]{"source", "target", "bytes"}, new Class[]{String.class, String.class, long.class});
+    public static final Kind JAR_SIGNING = new Kind("JarSigning", "Jar Signing", new String[]{"jarFile", "signingEngine", "fromCache"}, new Class[]{String.class, String.class, boolean.class});
+    public static final Kind ZIP_ENTRY_WRITE = new Kind("ZipEntryWrite", "Zip Entry Write", new String[]{"zipFile", "entryName", "bytes"}, new Class[]{String.class, String.class, long.class});
+    public static final Kind BUNDLER_CALL = new Kind("BundlerCall", "Bundler SPI Call", new String[]{"bundlerIdentifier", "method"}, new Class[]{String.class, String.class});
+
+    private static final List<Kind> ALL_KINDS = Arrays.asList(PHASE, FILE_COPY, JAR_SIGNING, ZIP_ENTRY_WRITE, BUNDLER_CALL);
+
+    private static final boolean AVAILABLE;
+    private static Method eventTypeIsEnabledMethod;
+    private static Method eventFactoryNewEventMethod;
+    private static Method eventBeginMethod;
+    private static Method eventEndMethod;
+    private static Method eventSetMethod;
+    private static Method eventCommitMethod;
+
+    static {
+        boolean available;
+        try{
+            available = registerEventTypes();
+        } catch(ReflectiveOperationException | RuntimeException | LinkageError ex){
+            available = false;
+        }
+        AVAILABLE = available;
+    }
+
+    private FlightRecorderEvents() {
+        // utility class
+    }
+
+    /**
+     * @return true, when running on some JVM providing Java Flight Recorder
+     */
+    public static boolean isAvailable() {
+        return AVAILABLE;
+    }
+
+    /**
+     * Starts some event, which gets committed after the work is done. When there is no recording for this kind of event, some
+     * shared no-op instance is returned.
+     *
+     * @param kind
+     *
+     * @return started event
+     */
+    public static TimedEvent begin(Kind kind) {
+        if( !AVAILABLE ){
+            return NO_OP_EVENT;
+        }
+        try{
+            if( !(Boolean) eventTypeIsEnabledMethod.invoke(kind.eventType) ){
+                return NO_OP_EVENT;
+            }
+            Object event = eventFactoryNewEventMethod.invoke(kind.eventFactory);
+            eventBeginMethod.invoke(event);
+            return new TimedEvent(kind, event);
+        } catch(ReflectiveOperationException | RuntimeException ex){
+            return NO_OP_EVENT;
+        }
+    }
+
+    private static boolean registerEventTypes() throws ReflectiveOperationException {
+        Class<?> eventFactoryClass = Class.forName("jdk.jfr.EventFactory");
+        Class<?> eventTypeClass = Class.forName("jdk.jfr.EventType");
+        Class<?> eventClass = Class.forName("jdk.jfr.Event");
+        Class<?> annotationElementClass = Class.forName("jdk.jfr.AnnotationElement");
+        Class<?> valueDescriptorClass = Class.forName("jdk.jfr.ValueDescriptor");
+        Class<? extends Annotation> nameAnnotation = Class.forName("jdk.jfr.Name").asSubclass(Annotation.class);
+        Class<? extends Annotation> labelAnnotation = Class.forName("jdk.jfr.Label").asSubclass(Annotation.class);
+        Class<? extends Annotation> categoryAnnotation = Class.forName("jdk.jfr.Category").asSubclass(Annotation.class);
+
+        Constructor<?> annotationElementConstructor = annotationElementClass.getConstructor(Class.class, Object.class);
+        Constructor<?> valueDescriptorConstructor = valueDescriptorClass.getConstructor(Class.class, String.class, List.class);
+        Method eventFactoryCreateMethod = eventFactoryClass.getMethod("create", List.class, List.class);
+        Method eventFactoryGetEventTypeMethod = eventFactoryClass.getMethod("getEventType");
+
+        eventTypeIsEnabledMethod = eventTypeClass.getMethod("isEnabled");
+        eventFactoryNewEventMethod = eventFactoryClass.getMethod("newEvent");
+        eventBeginMethod = eventClass.getMethod("begin");
+        eventEndMethod = eventClass.getMethod("end");
+        eventSetMethod = eventClass.getMethod("set", int.class, Object.class);
+        eventCommitMethod = eventClass.getMethod("commit");
+
+        for( Kind kind : ALL_KINDS ){
+            List<Object> eventAnnotations = Arrays.asList(
+                    annotationElementConstructor.newInstance(nameAnnotation, EVENT_NAME_PREFIX + kind.name),
+                    annotationElementConstructor.newInstance(labelAnnotation, kind.label),
+                    annotationElementConstructor.newInstance(categoryAnnotation, EVENT_CATEGORY)
+            );
+            List<Object> eventFields = new ArrayList<>();
+            for( int i = 0; i < kind.fieldNames.length; i++ ){
+                eventFields.add(valueDescriptorConstructor.newInstance(kind.fieldTypes[i], kind.fieldNames[i], new ArrayList<>()));
+            }
+            // the factory has to be kept, otherwise the event type gets unregistered
+            kind.eventFactory = eventFactoryCreateMethod.invoke(null, eventAnnotations, eventFields);
+            kind.eventType = eventFactoryGetEventTypeMethod.invoke(kind.eventFactory);
+        }
+        return true;
+    }
+
+    /**
+     * Some type of event, having its fields in a fixed order.
+     */
+    public static class Kind {
+
+        private final String name;
+        private final String label;
+        private final String[] fieldNames;
+        private final Class<?>[] fieldTypes;
+
+        // filled when JFR is available
+        private Object eventFactory = null;
+        private Object eventType = null;
+
+        private Kind(String name, String label, String[] fieldNames, Class<?>[] fieldTypes) {
+            this.name = name;
+            this.label = label;
+            this.fieldNames = fieldNames;
+            this.fieldTypes = fieldTypes;
+        }
+    }
+
+    /**
+     * Some started event, having the duration from creation until calling {@link #commit(java.lang.Object...) }.
+     */
+    public static class TimedEvent {
+
+        private final Kind kind;
+        private final Object event;
+
+        private TimedEvent(Kind kind, Object event) {
+            this.kind = kind;
+            this.event = event;
+        }
+
+        /**
+         * @param values all values, same order as defined by the kind of this event
+         */
+        public void commit(Object... values) {
+            if( event == null ){
+                return;
+            }
+            try{
+                eventEndMethod.invoke(event);
+                for( int i = 0; i < values.length && i < kind.fieldNames.length; i++ ){
+                    eventSetMethod.invoke(event, i, values[i]);
+                }
+                eventCommitMethod.invoke(event);
+            } catch(ReflectiveOperationException | RuntimeException ex){
+                // recording must never break the build
+            }
+        }
+    }
+}
@@ -0,0 +1,326 @@
+/*
+ * Copyright 2018 Danny Althoff
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.dynamicfiles.projects.maven.distributionbundleplugin;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.security.KeyStore;
+import java.security.MessageDigest;
+import java.security.PrivateKey;
+import java.security.cert.CertPath;
+import java.security.cert.Certificate;
+import java.security.cert.CertificateFactory;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.zip.ZipFile;
+
+/**
+ * Signs jar-files inside the current JVM using the "jdk.security.jarsigner"-API (available since JDK 9). The keystore gets loaded
+ * only once, the created signer is immutable and can be used from multiple threads.
+ *
+ * As this plugin still runs on JDK 8, that API is only accessed via reflection.
+ *
+ * @author Danny Althoff
+ */
+public class InProcessJarSigner {
+
+    private static final String JARSIGNER_CLASS = "jdk.security.jarsigner.JarSigner";
+    private static final String JARSIGNER_BUILDER_CLASS = "jdk.security.jarsigner.JarSigner$Builder";
+
+    private static final String JAR_TEMPLATE = "{JAR}";
+    private static final String OPTION_ALIAS = "alias";
+
+    private final Object jarSigner;
+    private final Method signMethod;
+    private final String signerName;
+
+    private InProcessJarSigner(Object jarSigner, Method signMethod, String signerName) {
+        this.jarSigner = jarSigner;
+        this.signMethod = signMethod;
+        this.signerName = signerName;
+    }
+
+    public static boolean isAvailable() {
+        try{
+            Class.forName(JARSIGNER_CLASS);
+            return true;
+        } catch(ClassNotFoundException ex){
+            return false;
+        }
+    }
+
+    /**
+     * Creates the signer using the same parameters as used for calling the jarsigner-executable. Only parameters related to
+     * signing with some file-based keystore are supported.
+     *
+     * @param signParameters jarsigner parameters, containing "{JAR}" followed by the alias
+     * @param workingFolder  folder to resolve relative keystore-locations against
+     *
+     * @return ready to use signer
+     *
+     * @throws IllegalArgumentException on unsupported or missing parameters
+     * @throws IOException              when the keystore or the key could not be loaded
+     */
+    public static InProcessJarSigner create(List<String> signParameters, Path workingFolder) throws IOException {
+        if( !isAvailable() ){
+            throw new IllegalArgumentException("Signing jar-files in-process requires JDK 9 or newer.");
+        }
+
+        Map<String, String> options = parseSignParameters(signParameters);
+        String alias = options.get(OPTION_ALIAS);
+        KeyStore keyStore = loadKeyStore(options, workingFolder);
+        char[] keypass = options.containsKey("-keypass") ? options.get("-keypass").toCharArray() : getStorepass(options);
+        PrivateKey privateKey;
+        CertPath certPath;
+        try{
+            Key key = keyStore.getKey(alias, keypass);
+            if( !(key instanceof PrivateKey) ){
+                throw new IOException("Could not find private key inside keystore for alias: " + alias);
+            }
+            privateKey = (PrivateKey) key;
+            certPath = CertificateFactory.getInstance("X.509").generateCertPath(Arrays.asList(getCertificateChain(keyStore, alias)));
+        } catch(GeneralSecurityException ex){
+            throw new IOException("Could not load key from keystore: " + options.get("-keystore"), ex);
+        }
+
+        String signerName = getSignerName(options.getOrDefault("-sigfile", alias));
+        try{
+            Class<?> builderClass = Class.forName(JARSIGNER_BUILDER_CLASS);
+            Constructor<?> builderConstructor = builderClass.getConstructor(PrivateKey.class, CertPath.class);
+            Object builder = builderConstructor.newInstance(privateKey, certPath);
+            builderClass.getMethod("signerName", String.class).invoke(builder, signerName);
+            if( options.containsKey("-sigalg") ){
+                builderClass.getMethod("signatureAlgorithm", String.class).invoke(builder, options.get("-sigalg"));
+            }
+            if( options.containsKey("-digestalg") ){
+                builderClass.getMethod("digestAlgorithm", String.class).invoke(builder, options.get("-digestalg"));
+            }
+            if( options.containsKey("-tsa") ){
+                builderClass.getMethod("tsa", URI.class).invoke(builder, URI.create(options.get("-tsa")));
+            }
+            Method setPropertyMethod = builderClass.getMethod("setProperty", String.class, String.class);
+            if( options.containsKey("-tsadigestalg") ){
+                setPropertyMethod.invoke(builder, "tsaDigestAlg", options.get("-tsadigestalg"));
+            }
+            if( options.containsKey("-tsapolicyid") ){
+                setPropertyMethod.invoke(builder, "tsaPolicyId", options.get("-tsapolicyid"));
+            }
+            if( options.containsKey("-internalsf") ){
+                setPropertyMethod.invoke(builder, "internalsf", "true");
+            }
+            if( options.containsKey("-sectionsonly") ){
+                setPropertyMethod.invoke(builder, "sectionsonly", "true");
+            }
+            Object jarSigner = builderClass.getMethod("build").invoke(builder);
+            Method signMethod = Class.forName(JARSIGNER_CLASS).getMethod("sign", ZipFile.class, OutputStream.class);
+            return new InProcessJarSigner(jarSigner, signMethod, signerName);
+        } catch(InvocationTargetException ex){
+            if( ex.getCause() instanceof IllegalArgumentException ){
+                throw (IllegalArgumentException) ex.getCause();
+            }
+            throw new IOException("Could not create jar signer.", ex.getCause());
+        } catch(ReflectiveOperationException ex){
+            throw new IOException("Could not create jar signer.", ex);
+        }
+    }
+
+    /**
+     * Signs the jar-file by writing a signed copy next to it, which replaces the jar-file afterwards. This never modifies the file
+     * some existing link is pointing to.
+     *
+     * @param jarFile
+     *
+     * @throws IOException
+     */
+    public void sign(Path jarFile) throws IOException {
+        Path signedJarFile = jarFile.resolveSibling(jarFile.getFileName().toString() + ".sig");
+        try{
+            try(ZipFile zipFile = new ZipFile(jarFile.toFile()); OutputStream signedOutputStream = Files.newOutputStream(signedJarFile)){
+                signMethod.invoke(jarSigner, zipFile, signedOutputStream);
+            }
+            Files.move(signedJarFile, jarFile, StandardCopyOption.REPLACE_EXISTING);
+        } catch(InvocationTargetException ex){
+            Files.deleteIfExists(signedJarFile);
+            throw new IOException("Could not sign jar-file: " + jarFile, ex.getCause());
+        } catch(IllegalAccessException ex){
+            Files.deleteIfExists(signedJarFile);
+            throw new IOException("Could not sign jar-file: " + jarFile, ex);
+        } catch(IOException | RuntimeException ex){
+            Files.deleteIfExists(signedJarFile);
+            throw ex;
+        }
+    }
+
+    public String getSignerName() {
+        return signerName;
+    }
+
+    /**
+     * Describes everything which has influence on the signed result: the fingerprint of the signer certificate, the used
+     * algorithms and signature file options. Jar-files signed with the same identity can be reused.
+     *
+     * @param signParameters jarsigner parameters, containing "{JAR}" followed by the alias
+     * @param workingFolder  folder to resolve relative keystore-locations against
+     *
+     * @return identity of the signer
+     *
+     * @throws IllegalArgumentException on unsupported or missing parameters
+     * @throws IOException              when the keystore or the certificate could not be loaded
+     */
+    public static String getSigningIdentity(List<String> signParameters, Path workingFolder) throws IOException {
+        Map<String, String> options = parseSignParameters(signParameters);
+        String alias = options.get(OPTION_ALIAS);
+        KeyStore keyStore = loadKeyStore(options, workingFolder);
+        String certificateFingerprint;
+        try{
+            MessageDigest sha256Digest = MessageDigest.getInstance("SHA-256");
+            certificateFingerprint = toHex(sha256Digest.digest(getCertificateChain(keyStore, alias)[0].getEncoded()));
+        } catch(GeneralSecurityException ex){
+            throw new IOException("Could not load certificate from keystore: " + options.get("-keystore"), ex);
+        }
+        // default algorithms might change between JDK versions
+        return String.join("|",
+                certificateFingerprint,
+                options.getOrDefault("-sigalg", "default"),
+                options.getOrDefault("-digestalg", "default"),
+                getSignerName(options.getOrDefault("-sigfile", alias)),
+                String.valueOf(options.containsKey("-internalsf")),
+                String.valueOf(options.containsKey("-sectionsonly")),
+                options.getOrDefault("-tsa", ""),
+                System.getProperty("java.specification.version")
+        );
+    }
+
+    private static Map<String, String> parseSignParameters(List<String> signParameters) {
+        Map<String, String> options = new HashMap<>();
+        String alias = null;
+        boolean foundJarTemplate = false;
+        for( int i = 0; i < signParameters.size(); i++ ){
+            String parameter = signParameters.get(i).trim();
+            if( JAR_TEMPLATE.equalsIgnoreCase(parameter) ){
+                foundJarTemplate = true;
+                continue;
+            }
+            switch(parameter.toLowerCase(Locale.ENGLISH)) {
+                case "-keystore":
+                case "-storetype":
+                case "-storepass":
+                case "-keypass":
+                case "-sigalg":
+                case "-digestalg":
+                case "-sigfile":
+                case "-tsa":
+                case "-tsadigestalg":
+                case "-tsapolicyid":
+                    if( i + 1 >= signParameters.size() ){
+                        throw new IllegalArgumentException("Missing value for parameter: " + parameter);
+                    }
+                    options.put(parameter.toLowerCase(Locale.ENGLISH), signParameters.get(++i));
+                    break;
+                case "-internalsf":
+                case "-sectionsonly":
+                    options.put(parameter.toLowerCase(Locale.ENGLISH), "true");
+                    break;
+                case "-verbose":
+                case "-strict":
+                case "-debug":
+                    // only affecting output or verification
+                    break;
+                default:
+                    if( parameter.startsWith("-") ){
+                        throw new IllegalArgumentException("Parameter is not supported for signing in-process: " + parameter);
+                    }
+                    if( !foundJarTemplate || alias != null ){
+                        throw new IllegalArgumentException("Unexpected parameter: " + parameter);
+                    }
+                    alias = parameter;
+            }
+        }
+        if( alias == null ){
+            throw new IllegalArgumentException("Missing alias after the {JAR}-parameter.");
+        }
+        String keystoreLocation = options.get("-keystore");
+        if( keystoreLocation == null || "NONE".equalsIgnoreCase(keystoreLocation) ){
+            throw new IllegalArgumentException("Signing in-process requires a file-based keystore.");
+        }
+        options.put(OPTION_ALIAS, alias);
+        return options;
+    }
+
+    private static char[] getStorepass(Map<String, String> options) {
+        return options.containsKey("-storepass") ? options.get("-storepass").toCharArray() : null;
+    }
+
+    private static KeyStore loadKeyStore(Map<String, String> options, Path workingFolder) throws IOException {
+        String keystoreLocation = options.get("-keystore");
+        try{
+            KeyStore keyStore = KeyStore.getInstance(options.getOrDefault("-storetype", KeyStore.getDefaultType()));
+            try(InputStream keystoreInputStream = Files.newInputStream(workingFolder.resolve(keystoreLocation), StandardOpenOption.READ)){
+                keyStore.load(keystoreInputStream, getStorepass(options));
+            }
+            return keyStore;
+        } catch(GeneralSecurityException ex){
+            throw new IOException("Could not load keystore: " + keystoreLocation, ex);
+        }
+    }
+
+    private static Certificate[] getCertificateChain(KeyStore keyStore, String alias) throws IOException, GeneralSecurityException {
+        Certificate[] certificateChain = keyStore.getCertificateChain(alias);
+        if( certificateChain == null || certificateChain.length == 0 ){
+            throw new IOException("Could not find certificate chain inside keystore for alias: " + alias);
+        }
+        return certificateChain;
+    }
+
+    private static String toHex(byte[] bytes) {
+        StringBuilder hex = new StringBuilder();
+        for( byte b : bytes ){
+            hex.append(String.format("%02x", b));
+        }
+        return hex.toString();
+    }
+
+    /**
+     * Uses the same rules for the signature filename as the jarsigner-executable.
+     */
+    private static String getSignerName(String sigfile) {
+        String name = sigfile;
+        if( name.length() > 8 ){
+            name = name.substring(0, 8);
+        }
+        name = name.toUpperCase(Locale.ENGLISH);
+        StringBuilder sanitizedName = new StringBuilder();
+        for( char c : name.toCharArray() ){
+            boolean isAllowed = (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '-' || c == '_';
+            sanitizedName.append(isAllowed ? c : '_');
+        }
+        return sanitizedName.toString();
+    }
+}
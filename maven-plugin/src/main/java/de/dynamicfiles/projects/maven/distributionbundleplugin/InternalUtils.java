@@ -17,25 +17,26 @@ package de.dynamicfiles.projects.maven.distributionbundleplugin;
 
 import de.dynamicfiles.projects.maven.distributionbundleplugin.api.SharedInternalTools;
 import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.nio.ByteOrder;
 import java.nio.MappedByteBuffer;
 import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
 import java.nio.file.FileVisitResult;
 import java.nio.file.FileVisitor;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.SimpleFileVisitor;
 import java.nio.file.StandardCopyOption;
 import java.nio.file.StandardOpenOption;
 import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.jar.JarFile;
 import java.util.logging.Level;
 import java.util.logging.Logger;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipOutputStream;
 
 /**
  * Some methods which are used internally. This class is shared to each bundler, making it easy to re-used already existing cool stuff.
@@ -46,6 +47,19 @@ public class InternalUtils implements SharedInternalTools {
 
     @Override
     public boolean copyRecursive(Path sourceFolder, Path targetFolder) throws IOException {
+        return copyRecursive(sourceFolder, targetFolder, null);
+    }
+
+    /**
+     * @param sourceFolder
+     * @param targetFolder
+     * @param bundleManifest when set, all copied files are recorded with their checksum (calculated while copying)
+     *
+     * @return true when some file could not be copied
+     *
+     * @throws IOException
+     */
+    public boolean copyRecursive(Path sourceFolder, Path targetFolder, BundleManifest bundleManifest) throws IOException {
         AtomicBoolean failed = new AtomicBoolean(false);
         Files.walkFileTree(sourceFolder, new FileVisitor<Path>() {
 
@@ -59,7 +73,14 @@ public class InternalUtils implements SharedInternalTools {
             @Override
             public FileVisitResult visitFile(Path sourceFile, BasicFileAttributes attrs) throws IOException {
                 // do copy, and replace, as the resource might already be existing
-                Files.copy(sourceFile, targetFolder.resolve(sourceFolder.relativize(sourceFile)), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.COPY_ATTRIBUTES);
+                FlightRecorderEvents.TimedEvent fileCopyEvent = FlightRecorderEvents.begin(FlightRecorderEvents.FILE_COPY);
+                Path targetFile = targetFolder.resolve(sourceFolder.relativize(sourceFile));
+                if( bundleManifest != null ){
+                    bundleManifest.copy(sourceFile, targetFile);
+                } else {
+                    Files.copy(sourceFile, targetFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.COPY_ATTRIBUTES);
+                }
+                fileCopyEvent.commit(sourceFile.toString(), targetFile.toString(), attrs.size());
                 return FileVisitResult.CONTINUE;
             }
 
@@ -119,33 +140,102 @@ public class InternalUtils implements SharedInternalTools {
 
     @Override
     public void pack(final Path folder, final Path zipFilePath) throws IOException {
-        // source of inspiration: http://stackoverflow.com/a/35158142/1961102
-        try(FileOutputStream fos = new FileOutputStream(zipFilePath.toFile()); ZipOutputStream zos = new ZipOutputStream(fos)){
-            Files.walkFileTree(folder, new SimpleFileVisitor<Path>() {
-                @Override
-                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
-                    // sanitize windows path parts, because ZIP only allows normal slash
-                    zos.putNextEntry(new ZipEntry(folder.relativize(file).toString().replace("\\", "/")));
-                    Files.copy(file, zos);
-                    zos.closeEntry();
-                    return FileVisitResult.CONTINUE;
-                }
-            });
+        pack(folder, zipFilePath, 1);
+    }
+
+    /**
+     * Packs the folder into some ZIP-file, compressing the files on multiple threads.
+     *
+     * @param folder
+     * @param zipFilePath
+     * @param parallelism amount of threads used for compressing
+     *
+     * @throws IOException
+     */
+    public void pack(final Path folder, final Path zipFilePath, int parallelism) throws IOException {
+        pack(folder, zipFilePath, parallelism, ZipCompressionPolicy.createDefault());
+    }
+
+    /**
+     * Packs the folder into some ZIP-file, compressing the files on multiple threads.
+     *
+     * @param folder
+     * @param zipFilePath
+     * @param parallelism       amount of threads used for compressing
+     * @param compressionPolicy decides which files are stored and which are compressed (using which level)
+     *
+     * @throws IOException
+     */
+    public void pack(final Path folder, final Path zipFilePath, int parallelism, ZipCompressionPolicy compressionPolicy) throws IOException {
+        new ZipArchivePacker(parallelism, compressionPolicy).pack(folder, zipFilePath);
+    }
+
+    /**
+     * Checks for any entry inside some folder, without reading the whole listing (which might contain tens of thousands of files).
+     *
+     * @param folder
+     *
+     * @return true, when not existing or not containing anything
+     *
+     * @throws IOException
+     */
+    public boolean isFolderEmpty(Path folder) throws IOException {
+        if( !Files.isDirectory(folder) ){
+            return true;
         }
+        try(DirectoryStream<Path> folderStream = Files.newDirectoryStream(folder)){
+            return !folderStream.iterator().hasNext();
+        }
+    }
+
+    /**
+     * Counts the direct entries of some folder, without reading the whole listing into memory.
+     *
+     * @param folder
+     *
+     * @return amount of files and folders
+     *
+     * @throws IOException
+     */
+    public long countFolderEntries(Path folder) throws IOException {
+        if( !Files.isDirectory(folder) ){
+            return 0;
+        }
+        long entries = 0;
+        try(DirectoryStream<Path> folderStream = Files.newDirectoryStream(folder)){
+            for( Path entry : folderStream ){
+                entries++;
+            }
+        }
+        return entries;
     }
 
     @Override
     public boolean isClassInsideJarFile(String classname, String locationPrefix, File jarFile) {
-        String requestedJarEntryName = locationPrefix + classname.replace(".", "/") + ".class";
-        try{
-            JarFile jarFileToSearchIn = new JarFile(jarFile, false, JarFile.OPEN_READ);
-            return jarFileToSearchIn.stream().parallel().filter(jarEntry -> {
-                return jarEntry.getName().equals(requestedJarEntryName);
-            }).findAny().isPresent();
+        return findClassesMissingInsideJarFile(Collections.singleton(classname), locationPrefix, jarFile).isEmpty();
+    }
+
+    /**
+     * Looks up multiple classes inside the same jar-file, opening that jar-file only once.
+     *
+     * @param classnames     full qualified classnames to look for
+     * @param locationPrefix prefix of the location inside the jar-file (e.g. "BOOT-INF/classes/"), can be empty
+     * @param jarFile        the jar-file to search in
+     *
+     * @return all classnames which were NOT found inside the jar-file (all of them, when the jar-file could not be read)
+     */
+    public Set<String> findClassesMissingInsideJarFile(Collection<String> classnames, String locationPrefix, File jarFile) {
+        Set<String> missingClassnames = new LinkedHashSet<>(classnames);
+        // lookup is done using the central directory, no need to iterate over all entries
+        try(JarFile jarFileToSearchIn = new JarFile(jarFile, false, JarFile.OPEN_READ)){
+            missingClassnames.removeIf(classname -> {
+                String requestedJarEntryName = locationPrefix + classname.replace(".", "/") + ".class";
+                return jarFileToSearchIn.getEntry(requestedJarEntryName) != null;
+            });
         } catch(IOException ex){
             // NO-OP
         }
-        return false;
+        return missingClassnames;
     }
 
     @Override
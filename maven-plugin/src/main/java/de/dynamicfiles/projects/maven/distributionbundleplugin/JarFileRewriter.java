@@ -0,0 +1,162 @@
+/*
+ * Copyright 2018 Danny Althoff
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.dynamicfiles.projects.maven.distributionbundleplugin;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.time.ZoneOffset;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Predicate;
+import java.util.jar.JarFile;
+import java.util.jar.Manifest;
+
+/**
+ * Writes a copy of some jar-file with a replaced manifest in one pass. All other entries are copied as they are (still being
+ * compressed), so the source gets read only once and nothing gets decompressed or compressed again.
+ *
+ * @author Danny Althoff
+ */
+public class JarFileRewriter {
+
+    private JarFileRewriter() {
+        // utility class
+    }
+
+    /**
+     * @param sourceJarFile jar-file to read from, will not be modified
+     * @param targetJarFile jar-file to create (or replace)
+     * @param manifest      the manifest to write into the target
+     *
+     * @throws IOException
+     */
+    public static void rewrite(Path sourceJarFile, Path targetJarFile, Manifest manifest) throws IOException {
+        rewrite(sourceJarFile, targetJarFile, manifest, entryName -> true);
+    }
+
+    /**
+     * @param sourceJarFile jar-file to read from, will not be modified
+     * @param targetJarFile jar-file to create (or replace)
+     * @param manifest      the manifest to write into the target
+     * @param entriesToKeep filter for all other entries, return false to skip some entry
+     *
+     * @throws IOException
+     */
+    public static void rewrite(Path sourceJarFile, Path targetJarFile, Manifest manifest, Predicate<String> entriesToKeep) throws IOException {
+        ZipArchiveEntry manifestEntry = new ZipArchiveEntry(JarFile.MANIFEST_NAME);
+        manifestEntry.setTime(System.currentTimeMillis());
+        rewrite(sourceJarFile, targetJarFile, manifest, entriesToKeep, manifestEntry, Collections.emptyList());
+    }
+
+    /**
+     * @param sourceJarFile jar-file to read from, will not be modified
+     * @param targetJarFile jar-file to create (or replace)
+     * @param manifest      the manifest to write into the target
+     * @param outputDigests digests getting updated with every byte written into the target
+     *
+     * @throws IOException
+     */
+    public static void rewrite(Path sourceJarFile, Path targetJarFile, Manifest manifest, List<MessageDigest> outputDigests) throws IOException {
+        ZipArchiveEntry manifestEntry = new ZipArchiveEntry(JarFile.MANIFEST_NAME);
+        manifestEntry.setTime(System.currentTimeMillis());
+        rewrite(sourceJarFile, targetJarFile, manifest, entryName -> true, manifestEntry, outputDigests);
+    }
+
+    /**
+     * Rewrites the jar-file without depending on the current time, so the same source always results in the same target.
+     *
+     * @param sourceJarFile      jar-file to read from, will not be modified
+     * @param targetJarFile      jar-file to create (or replace)
+     * @param manifest           the manifest to write into the target
+     * @param manifestTimeMillis last-modified time of the written manifest (stored using UTC)
+     *
+     * @throws IOException
+     */
+    public static void rewriteReproducible(Path sourceJarFile, Path targetJarFile, Manifest manifest, long manifestTimeMillis) throws IOException {
+        rewriteReproducible(sourceJarFile, targetJarFile, manifest, manifestTimeMillis, Collections.emptyList());
+    }
+
+    /**
+     * @param sourceJarFile      jar-file to read from, will not be modified
+     * @param targetJarFile      jar-file to create (or replace)
+     * @param manifest           the manifest to write into the target
+     * @param manifestTimeMillis last-modified time of the written manifest (stored using UTC)
+     * @param outputDigests      digests getting updated with every byte written into the target
+     *
+     * @throws IOException
+     */
+    public static void rewriteReproducible(Path sourceJarFile, Path targetJarFile, Manifest manifest, long manifestTimeMillis, List<MessageDigest> outputDigests) throws IOException {
+        ZipArchiveEntry manifestEntry = new ZipArchiveEntry(JarFile.MANIFEST_NAME);
+        manifestEntry.setTime(manifestTimeMillis, ZoneOffset.UTC);
+        rewrite(sourceJarFile, targetJarFile, manifest, entryName -> true, manifestEntry, outputDigests);
+    }
+
+    private static void rewrite(Path sourceJarFile, Path targetJarFile, Manifest manifest, Predicate<String> entriesToKeep, ZipArchiveEntry manifestEntry, List<MessageDigest> outputDigests) throws IOException {
+        ByteArrayOutputStream manifestContent = new ByteArrayOutputStream();
+        manifest.write(manifestContent);
+        manifestEntry.setMethod(ZipArchiveEntry.METHOD_DEFLATED);
+
+        // write to temporary file first, this never modifies the file some existing link (or the source) is pointing to
+        Path temporaryTargetJarFile = targetJarFile.resolveSibling(targetJarFile.getFileName().toString() + ".tmp");
+        try(ZipArchiveReader source = new ZipArchiveReader(sourceJarFile);
+                ZipArchiveWriter target = new ZipArchiveWriter(openTarget(temporaryTargetJarFile, outputDigests))){
+            target.copyPreamble(source);
+
+            boolean manifestWritten = false;
+            if( source.getEntries().stream().noneMatch(JarFileRewriter::isManifest) ){
+                // JarInputStream expects the manifest being one of the first entries
+                target.writeEntry(manifestEntry, manifestContent.toByteArray());
+                manifestWritten = true;
+            }
+            for( ZipArchiveEntry entry : source.getEntries() ){
+                if( isManifest(entry) ){
+                    // replace at the same position, but only once
+                    if( !manifestWritten ){
+                        target.writeEntry(manifestEntry, manifestContent.toByteArray());
+                        manifestWritten = true;
+                    }
+                    continue;
+                }
+                if( entriesToKeep.test(entry.getName()) ){
+                    target.copyRawEntry(source, entry);
+                }
+            }
+        } catch(IOException | RuntimeException ex){
+            Files.deleteIfExists(temporaryTargetJarFile);
+            throw ex;
+        }
+        Files.move(temporaryTargetJarFile, targetJarFile, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private static WritableByteChannel openTarget(Path targetJarFile, List<MessageDigest> outputDigests) throws IOException {
+        WritableByteChannel targetChannel = FileChannel.open(targetJarFile, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        if( outputDigests.isEmpty() ){
+            return targetChannel;
+        }
+        return new DigestingByteChannel(targetChannel, outputDigests);
+    }
+
+    private static boolean isManifest(ZipArchiveEntry entry) {
+        return JarFile.MANIFEST_NAME.equalsIgnoreCase(entry.getName());
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright 2018 Danny Althoff
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.dynamicfiles.projects.maven.distributionbundleplugin;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.jar.Attributes;
+import java.util.jar.JarFile;
+import java.util.jar.Manifest;
+
+/**
+ * Detects and removes existing signatures of jar-files.
+ *
+ * @author Danny Althoff
+ */
+public class JarSignatures {
+
+    private static final String SIGNATURE_FOLDER = "META-INF/";
+
+    private JarSignatures() {
+        // utility class
+    }
+
+    /**
+     * Checks for signature-related files, only reading the central directory of the jar-file.
+     *
+     * @param jarFile
+     *
+     * @return true, when containing some signature file or signature block file
+     *
+     * @throws IOException
+     */
+    public static boolean isSigned(Path jarFile) throws IOException {
+        try(ZipArchiveReader jarFileReader = new ZipArchiveReader(jarFile)){
+            return jarFileReader.getEntries().stream()
+                    .map(ZipArchiveEntry::getName)
+                    .anyMatch(JarSignatures::isSignatureRelatedFile);
+        }
+    }
+
+    /**
+     * Removes all signature-related files and all entry digests from the manifest. The jar-file gets replaced, all other entries are
+     * copied without being decompressed.
+     *
+     * @param jarFile
+     *
+     * @throws IOException
+     */
+    public static void stripSignatures(Path jarFile) throws IOException {
+        Manifest manifest = new Manifest();
+        try(ZipArchiveReader jarFileReader = new ZipArchiveReader(jarFile)){
+            ZipArchiveEntry manifestEntry = jarFileReader.getEntry(JarFile.MANIFEST_NAME);
+            if( manifestEntry != null ){
+                try(InputStream manifestInputStream = jarFileReader.getInputStream(manifestEntry)){
+                    manifest.read(manifestInputStream);
+                }
+            } else {
+                manifest.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION, "1.0");
+            }
+        }
+
+        // entry sections only containing digests are not needed anymore
+        manifest.getEntries().values().forEach(entryAttributes -> {
+            entryAttributes.keySet().removeIf(attributeName -> String.valueOf(attributeName).toLowerCase(Locale.ENGLISH).endsWith("-digest"));
+        });
+        manifest.getEntries().values().removeIf(Attributes::isEmpty);
+
+        JarFileRewriter.rewrite(jarFile, jarFile, manifest, entryName -> !isSignatureRelatedFile(entryName));
+    }
+
+    /**
+     * Same rules as used by the JDK: files directly inside META-INF having ".SF", ".RSA", ".DSA" or ".EC" as extension, or
+     * starting with "SIG-".
+     */
+    private static boolean isSignatureRelatedFile(String entryName) {
+        String upperCaseEntryName = entryName.toUpperCase(Locale.ENGLISH);
+        if( !upperCaseEntryName.startsWith(SIGNATURE_FOLDER) ){
+            return false;
+        }
+        String filename = upperCaseEntryName.substring(SIGNATURE_FOLDER.length());
+        if( filename.isEmpty() || filename.contains("/") ){
+            return false;
+        }
+        return filename.endsWith(".SF")
+                || filename.endsWith(".RSA")
+                || filename.endsWith(".DSA")
+                || filename.endsWith(".EC")
+                || filename.startsWith("SIG-");
+    }
+}
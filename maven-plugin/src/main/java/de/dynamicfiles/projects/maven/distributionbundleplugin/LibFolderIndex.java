@@ -0,0 +1,223 @@
+/*
+ * Copyright 2018 Danny Althoff
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.dynamicfiles.projects.maven.distributionbundleplugin;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Persisted index of all files copied into the lib-folder. Each entry knows its source file (path, size, last-modified and SHA-1 hash)
+ * and the state of the copied file, making it possible to skip copying unchanged dependencies and to find stale files of previous runs.
+ *
+ * @author Danny Althoff
+ */
+public class LibFolderIndex {
+
+    private static final String KEY_SOURCE = ".source";
+    private static final String KEY_SOURCE_SIZE = ".source.size";
+    private static final String KEY_SOURCE_LASTMODIFIED = ".source.lastModified";
+    private static final String KEY_SOURCE_SHA1 = ".source.sha1";
+    private static final String KEY_TARGET_SIZE = ".target.size";
+    private static final String KEY_TARGET_LASTMODIFIED = ".target.lastModified";
+
+    private final Path indexFile;
+    private final Map<String, IndexEntry> previousEntries = new ConcurrentHashMap<>();
+    private final Map<String, IndexEntry> currentEntries = new ConcurrentHashMap<>();
+
+    public LibFolderIndex(Path indexFile) throws IOException {
+        this.indexFile = indexFile;
+        if( Files.exists(indexFile, LinkOption.NOFOLLOW_LINKS) ){
+            Properties storedIndex = new Properties();
+            try(InputStream indexInputStream = Files.newInputStream(indexFile, StandardOpenOption.READ)){
+                storedIndex.load(indexInputStream);
+            }
+            storedIndex.stringPropertyNames().stream()
+                    .filter(key -> key.endsWith(KEY_SOURCE))
+                    .map(key -> key.substring(0, key.length() - KEY_SOURCE.length()))
+                    .forEach(name -> {
+                        try{
+                            IndexEntry entry = new IndexEntry();
+                            entry.source = storedIndex.getProperty(name + KEY_SOURCE);
+                            entry.sourceSize = Long.parseLong(storedIndex.getProperty(name + KEY_SOURCE_SIZE));
+                            entry.sourceLastModified = Long.parseLong(storedIndex.getProperty(name + KEY_SOURCE_LASTMODIFIED));
+                            entry.sourceSha1 = storedIndex.getProperty(name + KEY_SOURCE_SHA1, "");
+                            entry.targetSize = Long.parseLong(storedIndex.getProperty(name + KEY_TARGET_SIZE));
+                            entry.targetLastModified = Long.parseLong(storedIndex.getProperty(name + KEY_TARGET_LASTMODIFIED));
+                            previousEntries.put(name, entry);
+                        } catch(NumberFormatException | NullPointerException ex){
+                            // broken entry, just copy that file again
+                        }
+                    });
+        }
+    }
+
+    /**
+     * Checks if the target file still is the same copy of the source file, as it was recorded by some previous run.
+     *
+     * @param name       relative name inside the lib-folder
+     * @param sourceFile the file to copy from
+     * @param targetFile the file inside the lib-folder
+     *
+     * @return true, when copying can be skipped
+     *
+     * @throws IOException
+     */
+    public boolean isUpToDate(String name, Path sourceFile, Path targetFile) throws IOException {
+        IndexEntry previousEntry = previousEntries.get(name);
+        if( previousEntry == null || !Files.isRegularFile(targetFile) ){
+            return false;
+        }
+
+        // file inside lib-folder was changed by someone else
+        if( Files.size(targetFile) != previousEntry.targetSize || Files.getLastModifiedTime(targetFile).toMillis() != previousEntry.targetLastModified ){
+            return false;
+        }
+
+        long sourceSize = Files.size(sourceFile);
+        if( sourceSize != previousEntry.sourceSize ){
+            return false;
+        }
+
+        long sourceLastModified = Files.getLastModifiedTime(sourceFile).toMillis();
+        if( previousEntry.source.equals(sourceFile.toAbsolutePath().toString()) && sourceLastModified == previousEntry.sourceLastModified ){
+            currentEntries.put(name, previousEntry);
+            return true;
+        }
+
+        // source was touched or moved (e.g. re-downloaded), so compare the content
+        if( previousEntry.sourceSha1.isEmpty() ){
+            return false;
+        }
+        String sourceSha1 = getSha1(sourceFile);
+        if( !previousEntry.sourceSha1.equalsIgnoreCase(sourceSha1) ){
+            return false;
+        }
+
+        IndexEntry updatedEntry = new IndexEntry();
+        updatedEntry.source = sourceFile.toAbsolutePath().toString();
+        updatedEntry.sourceSize = sourceSize;
+        updatedEntry.sourceLastModified = sourceLastModified;
+        updatedEntry.sourceSha1 = sourceSha1;
+        updatedEntry.targetSize = previousEntry.targetSize;
+        updatedEntry.targetLastModified = previousEntry.targetLastModified;
+        currentEntries.put(name, updatedEntry);
+        return true;
+    }
+
+    /**
+     * Records a freshly copied file.
+     *
+     * @param name       relative name inside the lib-folder
+     * @param sourceFile the file copied from
+     * @param targetFile the file inside the lib-folder
+     *
+     * @throws IOException
+     */
+    public void record(String name, Path sourceFile, Path targetFile) throws IOException {
+        IndexEntry entry = new IndexEntry();
+        entry.source = sourceFile.toAbsolutePath().toString();
+        entry.sourceSize = Files.size(sourceFile);
+        entry.sourceLastModified = Files.getLastModifiedTime(sourceFile).toMillis();
+        entry.sourceSha1 = getSha1(sourceFile);
+        entry.targetSize = Files.size(targetFile);
+        entry.targetLastModified = Files.getLastModifiedTime(targetFile).toMillis();
+        currentEntries.put(name, entry);
+    }
+
+    /**
+     * All files which were copied by some previous run, but are not part of the current run (anymore).
+     *
+     * @return relative names inside the lib-folder
+     */
+    public Set<String> getStaleEntries() {
+        return previousEntries.keySet().stream()
+                .filter(name -> !currentEntries.containsKey(name))
+                .collect(Collectors.toSet());
+    }
+
+    public void store() throws IOException {
+        Properties indexToStore = new Properties();
+        currentEntries.forEach((name, entry) -> {
+            indexToStore.put(name + KEY_SOURCE, entry.source);
+            indexToStore.put(name + KEY_SOURCE_SIZE, String.valueOf(entry.sourceSize));
+            indexToStore.put(name + KEY_SOURCE_LASTMODIFIED, String.valueOf(entry.sourceLastModified));
+            indexToStore.put(name + KEY_SOURCE_SHA1, entry.sourceSha1);
+            indexToStore.put(name + KEY_TARGET_SIZE, String.valueOf(entry.targetSize));
+            indexToStore.put(name + KEY_TARGET_LASTMODIFIED, String.valueOf(entry.targetLastModified));
+        });
+        Files.createDirectories(indexFile.getParent());
+        try(OutputStream indexOutputStream = Files.newOutputStream(indexFile)){
+            indexToStore.store(indexOutputStream, null);
+        }
+    }
+
+    /**
+     * Uses the checksum-file placed next to the artifact inside the local repository, when present. Otherwise the SHA-1 hash
+     * gets calculated.
+     */
+    private String getSha1(Path sourceFile) throws IOException {
+        Path checksumFile = sourceFile.resolveSibling(sourceFile.getFileName().toString() + ".sha1");
+        if( Files.isRegularFile(checksumFile) && Files.size(checksumFile) < 1024 ){
+            // some repositories write "<hash> <filename>", so just take the first part
+            String[] checksumParts = new String(Files.readAllBytes(checksumFile), StandardCharsets.US_ASCII).trim().split("\\s+");
+            if( checksumParts.length > 0 && checksumParts[0].matches("[0-9a-fA-F]{40}") ){
+                return checksumParts[0].toLowerCase();
+            }
+        }
+
+        try{
+            MessageDigest sha1Digest = MessageDigest.getInstance("SHA-1");
+            try(InputStream sourceInputStream = new DigestInputStream(Files.newInputStream(sourceFile, StandardOpenOption.READ), sha1Digest)){
+                byte[] buffer = new byte[64 * 1024];
+                while( sourceInputStream.read(buffer) != -1 ){
+                    // just reading for the digest
+                }
+            }
+            StringBuilder sha1AsHex = new StringBuilder();
+            for( byte digestByte : sha1Digest.digest() ){
+                sha1AsHex.append(String.format("%02x", digestByte));
+            }
+            return sha1AsHex.toString();
+        } catch(NoSuchAlgorithmException ex){
+            // every JRE has to provide SHA-1, but don't fail for this
+            return "";
+        }
+    }
+
+    private static class IndexEntry {
+
+        String source;
+        long sourceSize;
+        long sourceLastModified;
+        String sourceSha1;
+        long targetSize;
+        long targetLastModified;
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright 2018 Danny Althoff
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.dynamicfiles.projects.maven.distributionbundleplugin;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+/**
+ * Looks up classes inside jar-files, which are nested inside some other jar-file (e.g. "BOOT-INF/lib/*.jar" of spring boot
+ * fat-jars). Nested jar-files are never extracted to disk: uncompressed ones are read directly at their position inside the
+ * outer jar-file, compressed ones are streamed in memory.
+ *
+ * The entry names of each nested jar-file are cached (using its CRC and size as identity), as fat-jars mostly contain the
+ * same libraries across multiple lookups or executions. The cache is limited by the total amount of entry names, so memory
+ * stays bounded even for nested jar-files having lots of entries.
+ *
+ * @author Danny Althoff
+ */
+public class NestedJarFileScanner {
+
+    private static final int MAX_CACHED_ENTRY_NAMES = 200000;
+
+    // access-ordered, so the least recently used nested jar-file comes first
+    private static final Map<String, Set<String>> CACHED_ENTRY_NAMES = new LinkedHashMap<>(64, 0.75f, true);
+    private static long cachedEntryNamesCount = 0;
+
+    private NestedJarFileScanner() {
+        // utility class
+    }
+
+    /**
+     * @param classnames           full qualified classnames to look for
+     * @param nestedJarFilesPrefix only nested jar-files with this prefix are scanned (e.g. "BOOT-INF/lib/"), can be empty
+     * @param jarFile              the outer jar-file
+     *
+     * @return all classnames which were NOT found inside any nested jar-file
+     *
+     * @throws IOException
+     */
+    public static Set<String> findClassesMissingInsideNestedJarFiles(Collection<String> classnames, String nestedJarFilesPrefix, Path jarFile) throws IOException {
+        Set<String> missingClassnames = new LinkedHashSet<>(classnames);
+        try(ZipArchiveReader outerJarFile = new ZipArchiveReader(jarFile)){
+            for( ZipArchiveEntry entry : outerJarFile.getEntries() ){
+                if( missingClassnames.isEmpty() ){
+                    break;
+                }
+                if( entry.isDirectory() || !entry.getName().startsWith(nestedJarFilesPrefix) || !entry.getName().toLowerCase().endsWith(".jar") ){
+                    continue;
+                }
+                Set<String> nestedEntryNames = getNestedEntryNames(outerJarFile, entry);
+                missingClassnames.removeIf(classname -> nestedEntryNames.contains(classname.replace(".", "/") + ".class"));
+            }
+        }
+        return missingClassnames;
+    }
+
+    private static Set<String> getNestedEntryNames(ZipArchiveReader outerJarFile, ZipArchiveEntry entry) throws IOException {
+        String cacheKey = entry.getName() + "|" + entry.getCrc() + "|" + entry.getSize() + "|" + entry.getCompressedSize();
+        synchronized(CACHED_ENTRY_NAMES){
+            Set<String> cachedEntryNames = CACHED_ENTRY_NAMES.get(cacheKey);
+            if( cachedEntryNames != null ){
+                return cachedEntryNames;
+            }
+        }
+
+        Set<String> nestedEntryNames = new HashSet<>();
+        if( entry.getMethod() == ZipArchiveEntry.METHOD_STORED ){
+            // only the central directory of the nested jar-file gets read
+            try(ZipArchiveReader nestedJarFile = new ZipArchiveReader(outerJarFile.getChannel(), outerJarFile.getDataOffset(entry), entry.getCompressedSize())){
+                nestedJarFile.getEntries().forEach(nestedEntry -> nestedEntryNames.add(nestedEntry.getName()));
+            }
+        } else {
+            // compressed nested jar-files have to be inflated, but only in memory
+            try(ZipInputStream nestedJarInputStream = new ZipInputStream(outerJarFile.getInputStream(entry))){
+                ZipEntry nestedEntry;
+                while( (nestedEntry = nestedJarInputStream.getNextEntry()) != null ){
+                    nestedEntryNames.add(nestedEntry.getName());
+                }
+            }
+        }
+        Set<String> unmodifiableEntryNames = Collections.unmodifiableSet(nestedEntryNames);
+        cacheEntryNames(cacheKey, unmodifiableEntryNames);
+        return unmodifiableEntryNames;
+    }
+
+    private static void cacheEntryNames(String cacheKey, Set<String> entryNames) {
+        if( entryNames.size() > MAX_CACHED_ENTRY_NAMES ){
+            // would evict everything else
+            return;
+        }
+        synchronized(CACHED_ENTRY_NAMES){
+            Set<String> replacedEntryNames = CACHED_ENTRY_NAMES.put(cacheKey, entryNames);
+            if( replacedEntryNames != null ){
+                cachedEntryNamesCount -= replacedEntryNames.size();
+            }
+            cachedEntryNamesCount += entryNames.size();
+            Iterator<Set<String>> leastRecentlyUsedFirst = CACHED_ENTRY_NAMES.values().iterator();
+            while( cachedEntryNamesCount > MAX_CACHED_ENTRY_NAMES && leastRecentlyUsedFirst.hasNext() ){
+                cachedEntryNamesCount -= leastRecentlyUsedFirst.next().size();
+                leastRecentlyUsedFirst.remove();
+            }
+        }
+    }
+}
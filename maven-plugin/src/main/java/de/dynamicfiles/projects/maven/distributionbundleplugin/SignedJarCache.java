@@ -0,0 +1,240 @@
+/*
+ * Copyright 2018 Danny Althoff
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.dynamicfiles.projects.maven.distributionbundleplugin;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Local cache of signed jar-files. Each entry is identified by the hash of the unsigned jar-file and the signing identity (signer
+ * certificate fingerprint, algorithms), so unchanged dependencies only have to be signed once. Every hit touches some separate marker
+ * file next to the cached entry, making it possible to evict the least recently used entries when the cache gets too big. The cached
+ * entry itself is never touched, as it might be hard-linked into some bundle, where its last-modified time has to stay stable.
+ *
+ * @author Danny Althoff
+ */
+public class SignedJarCache {
+
+    private static final String CACHED_FILE_EXTENSION = ".jar";
+    private static final String USAGE_MARKER_EXTENSION = ".used";
+
+    private final Path cacheFolder;
+    private final String signingIdentity;
+    private final long maxSizeInBytes;
+
+    private final AtomicInteger hits = new AtomicInteger();
+    private final AtomicInteger misses = new AtomicInteger();
+
+    public SignedJarCache(Path cacheFolder, String signingIdentity, long maxSizeInBytes) throws IOException {
+        this.cacheFolder = cacheFolder;
+        this.signingIdentity = signingIdentity;
+        this.maxSizeInBytes = maxSizeInBytes;
+        Files.createDirectories(cacheFolder);
+    }
+
+    /**
+     * @param unsignedJarFile
+     *
+     * @return key for this jar-file combined with the signing identity
+     *
+     * @throws IOException
+     */
+    public String getCacheKey(Path unsignedJarFile) throws IOException {
+        try{
+            MessageDigest sha256Digest = MessageDigest.getInstance("SHA-256");
+            try(InputStream jarInputStream = Files.newInputStream(unsignedJarFile, StandardOpenOption.READ)){
+                byte[] buffer = new byte[64 * 1024];
+                int read;
+                while( (read = jarInputStream.read(buffer)) != -1 ){
+                    sha256Digest.update(buffer, 0, read);
+                }
+            }
+            sha256Digest.update((byte) 0);
+            sha256Digest.update(signingIdentity.getBytes(StandardCharsets.UTF_8));
+            StringBuilder keyAsHex = new StringBuilder();
+            for( byte digestByte : sha256Digest.digest() ){
+                keyAsHex.append(String.format("%02x", digestByte));
+            }
+            return keyAsHex.toString();
+        } catch(NoSuchAlgorithmException ex){
+            // every JRE has to provide SHA-256
+            throw new IOException(ex);
+        }
+    }
+
+    /**
+     * Replaces the jar-file with the cached signed one, when present.
+     *
+     * @param cacheKey
+     * @param jarFile  the unsigned jar-file, gets replaced
+     * @param linkFile when set to "true", the cached file gets hard-linked instead of copied (if possible)
+     *
+     * @return true on cache-hit
+     *
+     * @throws IOException
+     */
+    public boolean restore(String cacheKey, Path jarFile, boolean linkFile) throws IOException {
+        Path cachedFile = cacheFolder.resolve(cacheKey + CACHED_FILE_EXTENSION);
+        if( !Files.isRegularFile(cachedFile) ){
+            misses.incrementAndGet();
+            return false;
+        }
+        Path temporaryFile = jarFile.resolveSibling(jarFile.getFileName().toString() + ".cached");
+        try{
+            Files.deleteIfExists(temporaryFile);
+            boolean linked = false;
+            if( linkFile ){
+                try{
+                    Files.createLink(temporaryFile, cachedFile);
+                    linked = true;
+                } catch(IOException | UnsupportedOperationException ex){
+                    // different filesystem or not supported, just copy it
+                }
+            }
+            if( !linked ){
+                Files.copy(cachedFile, temporaryFile, StandardCopyOption.REPLACE_EXISTING);
+            }
+            Files.move(temporaryFile, jarFile, StandardCopyOption.REPLACE_EXISTING);
+        } catch(IOException ex){
+            Files.deleteIfExists(temporaryFile);
+            // might got evicted by some other build in the meantime
+            if( !Files.isRegularFile(cachedFile) ){
+                misses.incrementAndGet();
+                return false;
+            }
+            throw ex;
+        }
+        // mark as recently used
+        try{
+            Path usageMarkerFile = cacheFolder.resolve(cacheKey + USAGE_MARKER_EXTENSION);
+            if( Files.exists(usageMarkerFile) ){
+                Files.setLastModifiedTime(usageMarkerFile, FileTime.fromMillis(System.currentTimeMillis()));
+            } else {
+                Files.createFile(usageMarkerFile);
+            }
+        } catch(IOException ex){
+            // not important
+        }
+        hits.incrementAndGet();
+        return true;
+    }
+
+    /**
+     * Stores some freshly signed jar-file.
+     *
+     * @param cacheKey      key of the unsigned jar-file
+     * @param signedJarFile
+     *
+     * @throws IOException
+     */
+    public void store(String cacheKey, Path signedJarFile) throws IOException {
+        Path cachedFile = cacheFolder.resolve(cacheKey + CACHED_FILE_EXTENSION);
+        // other builds might use the same cache, so never show some partial written file
+        Path temporaryFile = Files.createTempFile(cacheFolder, cacheKey, ".tmp");
+        try{
+            Files.copy(signedJarFile, temporaryFile, StandardCopyOption.REPLACE_EXISTING);
+            try{
+                Files.move(temporaryFile, cachedFile, StandardCopyOption.ATOMIC_MOVE);
+            } catch(AtomicMoveNotSupportedException ex){
+                Files.move(temporaryFile, cachedFile, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally{
+            Files.deleteIfExists(temporaryFile);
+        }
+    }
+
+    /**
+     * Removes least recently used entries until the cache is below the configured size.
+     *
+     * @return amount of removed entries
+     *
+     * @throws IOException
+     */
+    public int evict() throws IOException {
+        Map<Path, BasicFileAttributes> cachedFiles = new HashMap<>();
+        Map<Path, FileTime> lastUsedTimes = new HashMap<>();
+        long cacheSize = 0;
+        try(DirectoryStream<Path> cacheFolderStream = Files.newDirectoryStream(cacheFolder, "*" + CACHED_FILE_EXTENSION)){
+            for( Path cachedFile : cacheFolderStream ){
+                try{
+                    BasicFileAttributes cachedFileAttributes = Files.readAttributes(cachedFile, BasicFileAttributes.class);
+                    cachedFiles.put(cachedFile, cachedFileAttributes);
+                    lastUsedTimes.put(cachedFile, getLastUsedTime(cachedFile, cachedFileAttributes));
+                    cacheSize += cachedFileAttributes.size();
+                } catch(NoSuchFileException ex){
+                    // got evicted by some other build in the meantime
+                }
+            }
+        }
+        if( cacheSize <= maxSizeInBytes ){
+            return 0;
+        }
+        List<Path> leastRecentlyUsedFirst = new ArrayList<>(cachedFiles.keySet());
+        leastRecentlyUsedFirst.sort(Comparator.comparing(lastUsedTimes::get));
+        int removedEntries = 0;
+        for( Path cachedFile : leastRecentlyUsedFirst ){
+            if( cacheSize <= maxSizeInBytes ){
+                break;
+            }
+            if( Files.deleteIfExists(cachedFile) ){
+                Files.deleteIfExists(getUsageMarkerFile(cachedFile));
+                cacheSize -= cachedFiles.get(cachedFile).size();
+                removedEntries++;
+            }
+        }
+        return removedEntries;
+    }
+
+    private Path getUsageMarkerFile(Path cachedFile) {
+        String cachedFileName = cachedFile.getFileName().toString();
+        return cachedFile.resolveSibling(cachedFileName.substring(0, cachedFileName.length() - CACHED_FILE_EXTENSION.length()) + USAGE_MARKER_EXTENSION);
+    }
+
+    private FileTime getLastUsedTime(Path cachedFile, BasicFileAttributes cachedFileAttributes) {
+        try{
+            return Files.getLastModifiedTime(getUsageMarkerFile(cachedFile));
+        } catch(IOException ex){
+            // never restored yet, so the time of storing it is the last usage
+            return cachedFileAttributes.lastModifiedTime();
+        }
+    }
+
+    public int getHits() {
+        return hits.get();
+    }
+
+    public int getMisses() {
+        return misses.get();
+    }
+}
@@ -0,0 +1,266 @@
+/*
+ * Copyright 2018 Danny Althoff
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.dynamicfiles.projects.maven.distributionbundleplugin;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+/**
+ * One record of the central directory of some ZIP-file, containing everything required to copy that entry as-is (without
+ * decompressing) into some other ZIP-file.
+ *
+ * @author Danny Althoff
+ */
+public class ZipArchiveEntry {
+
+    public static final int METHOD_STORED = 0;
+    public static final int METHOD_DEFLATED = 8;
+
+    public static final int FLAG_DATA_DESCRIPTOR = 0x0008;
+    public static final int FLAG_UTF8 = 0x0800;
+
+    public static final int HOST_UNIX = 3;
+
+    private final byte[] nameBytes;
+    private final String name;
+    private int versionMadeBy = 20;
+    private int versionNeeded = 20;
+    private int flags = FLAG_UTF8;
+    private int method = METHOD_DEFLATED;
+    private long dosTime;
+    private long crc;
+    private long compressedSize;
+    private long size;
+    private byte[] extra = new byte[0];
+    private byte[] comment = new byte[0];
+    private int internalAttributes;
+    private long externalAttributes;
+    private long localHeaderOffset;
+
+    public ZipArchiveEntry(String name) {
+        this.name = name;
+        this.nameBytes = name.getBytes(StandardCharsets.UTF_8);
+    }
+
+    ZipArchiveEntry(byte[] nameBytes) {
+        this.nameBytes = nameBytes;
+        this.name = new String(nameBytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Creates a copy of this central directory record, as each ZIP-file has its own offsets.
+     *
+     * @return copied entry
+     */
+    public ZipArchiveEntry copy() {
+        ZipArchiveEntry copiedEntry = new ZipArchiveEntry(nameBytes);
+        copiedEntry.versionMadeBy = versionMadeBy;
+        copiedEntry.versionNeeded = versionNeeded;
+        copiedEntry.flags = flags;
+        copiedEntry.method = method;
+        copiedEntry.dosTime = dosTime;
+        copiedEntry.crc = crc;
+        copiedEntry.compressedSize = compressedSize;
+        copiedEntry.size = size;
+        copiedEntry.extra = extra;
+        copiedEntry.comment = comment;
+        copiedEntry.internalAttributes = internalAttributes;
+        copiedEntry.externalAttributes = externalAttributes;
+        copiedEntry.localHeaderOffset = localHeaderOffset;
+        return copiedEntry;
+    }
+
+    public boolean isDirectory() {
+        return name.endsWith("/");
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public byte[] getNameBytes() {
+        return nameBytes;
+    }
+
+    public int getVersionMadeBy() {
+        return versionMadeBy;
+    }
+
+    public void setVersionMadeBy(int versionMadeBy) {
+        this.versionMadeBy = versionMadeBy;
+    }
+
+    public int getVersionNeeded() {
+        return versionNeeded;
+    }
+
+    public void setVersionNeeded(int versionNeeded) {
+        this.versionNeeded = versionNeeded;
+    }
+
+    public int getFlags() {
+        return flags;
+    }
+
+    public void setFlags(int flags) {
+        this.flags = flags;
+    }
+
+    public int getMethod() {
+        return method;
+    }
+
+    public void setMethod(int method) {
+        this.method = method;
+    }
+
+    public long getDosTime() {
+        return dosTime;
+    }
+
+    public void setDosTime(long dosTime) {
+        this.dosTime = dosTime;
+    }
+
+    /**
+     * Sets the last-modified time, converted into the MS-DOS format (having a 2-second precision, using local time).
+     *
+     * @param millis
+     */
+    public void setTime(long millis) {
+        setTime(millis, ZoneId.systemDefault());
+    }
+
+    /**
+     * Sets the last-modified time, converted into the MS-DOS format using the given time zone. Using a fixed time zone (like UTC)
+     * results in the same ZIP-file, regardless of the time zone of the machine creating it.
+     *
+     * @param millis
+     * @param zoneId
+     */
+    public void setTime(long millis, ZoneId zoneId) {
+        LocalDateTime localTime = LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), zoneId);
+        int year = localTime.getYear();
+        if( year < 1980 ){
+            // earliest possible date: 1980-01-01 00:00:00
+            dosTime = (1 << 21) | (1 << 16);
+            return;
+        }
+        year = Math.min(year, 2107);
+        dosTime = ((year - 1980L) << 25)
+                | (localTime.getMonthValue() << 21)
+                | (localTime.getDayOfMonth() << 16)
+                | (localTime.getHour() << 11)
+                | (localTime.getMinute() << 5)
+                | (localTime.getSecond() >> 1);
+    }
+
+    /**
+     * @return the last-modified time converted from the MS-DOS format
+     */
+    public long getTime() {
+        LocalDateTime localTime = LocalDateTime.of(
+                (int) (((dosTime >> 25) & 0x7f) + 1980),
+                (int) Math.max(1, Math.min(12, (dosTime >> 21) & 0x0f)),
+                (int) Math.max(1, Math.min(31, (dosTime >> 16) & 0x1f)),
+                (int) Math.min(23, (dosTime >> 11) & 0x1f),
+                (int) Math.min(59, (dosTime >> 5) & 0x3f),
+                (int) Math.min(59, (dosTime << 1) & 0x3e)
+        );
+        return localTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    public long getCrc() {
+        return crc;
+    }
+
+    public void setCrc(long crc) {
+        this.crc = crc;
+    }
+
+    public long getCompressedSize() {
+        return compressedSize;
+    }
+
+    public void setCompressedSize(long compressedSize) {
+        this.compressedSize = compressedSize;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public void setSize(long size) {
+        this.size = size;
+    }
+
+    public byte[] getExtra() {
+        return extra;
+    }
+
+    public void setExtra(byte[] extra) {
+        this.extra = extra;
+    }
+
+    public byte[] getComment() {
+        return comment;
+    }
+
+    public void setComment(byte[] comment) {
+        this.comment = comment;
+    }
+
+    public int getInternalAttributes() {
+        return internalAttributes;
+    }
+
+    public void setInternalAttributes(int internalAttributes) {
+        this.internalAttributes = internalAttributes;
+    }
+
+    /**
+     * Marks this entry as created on some unix system, having the given file mode stored in the external attributes.
+     *
+     * @param unixMode file type and permissions, e.g. 0100644 for some regular file
+     */
+    public void setUnixMode(int unixMode) {
+        versionMadeBy = (HOST_UNIX << 8) | (versionMadeBy & 0xff);
+        externalAttributes = ((long) unixMode & 0xffff) << 16;
+    }
+
+    public long getExternalAttributes() {
+        return externalAttributes;
+    }
+
+    public void setExternalAttributes(long externalAttributes) {
+        this.externalAttributes = externalAttributes;
+    }
+
+    public long getLocalHeaderOffset() {
+        return localHeaderOffset;
+    }
+
+    public void setLocalHeaderOffset(long localHeaderOffset) {
+        this.localHeaderOffset = localHeaderOffset;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
@@ -0,0 +1,725 @@
+/*
+ * Copyright 2018 Danny Althoff
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.dynamicfiles.projects.maven.distributionbundleplugin;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.PosixFilePermission;
+import java.security.MessageDigest;
+import java.time.ZoneOffset;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Packs the content of some folder into a ZIP-file, compressing on multiple threads while writing the ZIP-file sequentially.
+ * <p>
+ * Every file is split into chunks, which are compressed independently (like pigz does): each chunk gets the last 32 KiB of its
+ * predecessor as dictionary and all but the last chunk of a file end with a sync-flush, so the concatenated chunks are one regular
+ * DEFLATE-stream. The checksums of the chunks are combined into the checksum of the whole file. Only a limited amount of chunks is
+ * compressed ahead of the writing thread, content of files consisting of multiple chunks is collected inside some temporary file,
+ * which keeps the used memory independent of the size of the files.
+ * <p>
+ * Files which are stored without compression (as decided by the {@link ZipCompressionPolicy}) are only read for calculating their
+ * checksum upfront, their content gets transferred directly from the file into the ZIP-file afterwards.
+ * <p>
+ * All buffers for reading and compressing chunks are taken from pools, so packing lots of files does not allocate new buffers for
+ * each file. Chunks of big files are read using memory-mapping (except on Windows, where mapped files stay locked until the
+ * garbage collector releases the mapping).
+ * <p>
+ * When packing reproducible, all entries are sorted by their name, are having the same last-modified time (stored using UTC) and
+ * their permissions are normalized to "rw-r--r--" (or "rwxr-xr-x" for executable files), so the same content always results in
+ * the same ZIP-file.
+ *
+ * @author Danny Althoff
+ */
+public class ZipArchivePacker {
+
+    private static final int CHUNK_SIZE = 1024 * 1024;
+    private static final int DICTIONARY_SIZE = 32 * 1024;
+    private static final int CHUNKS_AHEAD_PER_THREAD = 2;
+    // same upper bound as zlib uses, plus some space for the sync-flush marker
+    private static final int COMPRESSED_CHUNK_BOUND = CHUNK_SIZE + (CHUNK_SIZE >> 12) + (CHUNK_SIZE >> 14) + 64;
+    private static final boolean MEMORY_MAPPING_SUPPORTED = !System.getProperty("os.name").toLowerCase().contains("win");
+
+    private static final int UNIX_MODE_REGULAR_FILE = 0100644;
+    private static final int UNIX_MODE_EXECUTABLE_FILE = 0100755;
+
+    private final int parallelism;
+    private final ZipCompressionPolicy compressionPolicy;
+    private final long reproducibleTimeMillis;
+    private long reusedEntries = 0;
+    private long compressedEntries = 0;
+
+    /**
+     * @param parallelism       amount of threads used for compressing, using "1" compresses on the calling thread only
+     * @param compressionPolicy decides about compression method and level of each file
+     */
+    public ZipArchivePacker(int parallelism, ZipCompressionPolicy compressionPolicy) {
+        this(parallelism, compressionPolicy, -1);
+    }
+
+    /**
+     * @param parallelism            amount of threads used for compressing, using "1" compresses on the calling thread only
+     * @param compressionPolicy      decides about compression method and level of each file
+     * @param reproducibleTimeMillis last-modified time used for all entries when packing reproducible, "-1" uses the last-modified
+     *                               time of each file (keeping the order of the filesystem and not storing any permissions)
+     */
+    public ZipArchivePacker(int parallelism, ZipCompressionPolicy compressionPolicy, long reproducibleTimeMillis) {
+        this.parallelism = Math.max(1, parallelism);
+        this.compressionPolicy = compressionPolicy;
+        this.reproducibleTimeMillis = reproducibleTimeMillis;
+    }
+
+    /**
+     * @param folder      all files inside this folder are packed, using their relative path as entry name
+     * @param zipFilePath ZIP-file to create (or replace)
+     *
+     * @throws IOException
+     */
+    public void pack(final Path folder, final Path zipFilePath) throws IOException {
+        pack(folder, zipFilePath, null);
+    }
+
+    /**
+     * Packs the folder, re-using the entries of some previously packed ZIP-file: every entry having the same name, size,
+     * last-modified-time, compression method and checksum as the file to pack gets copied as-is, only changed or new files are
+     * compressed. The checksum of such files still gets calculated, but this is a lot cheaper than compressing them.
+     *
+     * @param folder              all files inside this folder are packed, using their relative path as entry name
+     * @param zipFilePath         ZIP-file to create (or replace), has to be a different file than the previous one
+     * @param previousZipFilePath previously packed ZIP-file, can be null or not existing (broken ZIP-files are ignored too)
+     *
+     * @throws IOException
+     */
+    public void pack(final Path folder, final Path zipFilePath, final Path previousZipFilePath) throws IOException {
+        pack(folder, zipFilePath, previousZipFilePath, Collections.emptyList());
+    }
+
+    /**
+     * Packs the folder like {@link #pack(java.nio.file.Path, java.nio.file.Path, java.nio.file.Path)}, updating the given digests with
+     * every byte written into the ZIP-file. This makes it possible to create checksum-files without reading the ZIP-file again.
+     * <p>
+     * The ZIP-file gets written into some temporary file next to it first, which replaces the ZIP-file only after packing succeeded.
+     * This way a failed packing never leaves some partial (but still valid looking) ZIP-file behind.
+     *
+     * @param folder              all files inside this folder are packed, using their relative path as entry name
+     * @param zipFilePath         ZIP-file to create (or replace), has to be a different file than the previous one
+     * @param previousZipFilePath previously packed ZIP-file, can be null or not existing (broken ZIP-files are ignored too)
+     * @param outputDigests       digests of the created ZIP-file, can be empty
+     *
+     * @throws IOException
+     */
+    public void pack(final Path folder, final Path zipFilePath, final Path previousZipFilePath, final List<MessageDigest> outputDigests) throws IOException {
+        reusedEntries = 0;
+        compressedEntries = 0;
+
+        List<Path> filesToPack = new ArrayList<>();
+        Files.walkFileTree(folder, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                filesToPack.add(file);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+        if( isReproducible() ){
+            // the order of the filesystem is not stable
+            filesToPack.sort(Comparator.comparing(file -> getEntryName(folder, file)));
+        }
+
+        ZipArchiveReader previousArchive = null;
+        if( previousZipFilePath != null && Files.isRegularFile(previousZipFilePath) ){
+            try{
+                previousArchive = new ZipArchiveReader(previousZipFilePath);
+            } catch(IOException ex){
+                // nothing to re-use, so everything gets compressed
+            }
+        }
+
+        int maximumChunksInProgress = parallelism * CHUNKS_AHEAD_PER_THREAD;
+        // each running compression needs one buffer for reading, every compressed chunk (including the one getting written) one for its result
+        BufferPool readBuffers = new BufferPool(parallelism, DICTIONARY_SIZE + CHUNK_SIZE);
+        BufferPool compressionBuffers = new BufferPool(maximumChunksInProgress + 1, COMPRESSED_CHUNK_BOUND);
+
+        Path temporaryZipFilePath = zipFilePath.resolveSibling(zipFilePath.getFileName().toString() + ".tmp");
+        ExecutorService compressionExecutor = parallelism > 1 ? Executors.newFixedThreadPool(parallelism) : null;
+        PackingRun packingRun = null;
+        boolean packed = false;
+        WritableByteChannel zipFileChannel = FileChannel.open(temporaryZipFilePath, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        if( !outputDigests.isEmpty() ){
+            zipFileChannel = new DigestingByteChannel(zipFileChannel, outputDigests);
+        }
+        try{
+            try(ZipArchiveWriter zipArchiveWriter = new ZipArchiveWriter(zipFileChannel)){
+                packingRun = new PackingRun(folder, zipFilePath, zipArchiveWriter, previousArchive, readBuffers, compressionBuffers);
+                Deque<Future<CompressedChunk>> chunksInProgress = new ArrayDeque<>();
+                for( Path file : filesToPack ){
+                    String entryName = getEntryName(folder, file);
+                    int method = compressionPolicy.getMethod(entryName);
+                    int level = compressionPolicy.getLevel(entryName);
+                    long fileSize = Files.size(file);
+                    ZipArchiveEntry reusableEntry = findReusableEntry(previousArchive, entryName, method, fileSize, file);
+                    for( ChunkToCompress chunkToCompress : splitIntoChunks(file, fileSize, method, level, reusableEntry) ){
+                        chunksInProgress.add(submit(compressionExecutor, () -> compressChunk(chunkToCompress, readBuffers, compressionBuffers)));
+                        // limit the amount of compressed chunks kept in memory
+                        while( chunksInProgress.size() >= maximumChunksInProgress ){
+                            packingRun.writeChunk(awaitChunk(chunksInProgress.poll()));
+                        }
+                    }
+                }
+                while( !chunksInProgress.isEmpty() ){
+                    packingRun.writeChunk(awaitChunk(chunksInProgress.poll()));
+                }
+                // writing the central directory might fail too
+                zipArchiveWriter.finish();
+            }
+            // only a completely written and closed ZIP-file is moved into place
+            packed = true;
+        } finally{
+            if( compressionExecutor != null ){
+                compressionExecutor.shutdownNow();
+            }
+            if( previousArchive != null ){
+                previousArchive.close();
+            }
+            if( packingRun != null ){
+                packingRun.deleteMultiChunkContentFile();
+            }
+            if( !packed ){
+                Files.deleteIfExists(temporaryZipFilePath);
+            }
+        }
+        try{
+            Files.move(temporaryZipFilePath, zipFilePath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch(AtomicMoveNotSupportedException ex){
+            Files.move(temporaryZipFilePath, zipFilePath, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * @return amount of entries copied from the previous ZIP-file during the last packing
+     */
+    public long getReusedEntries() {
+        return reusedEntries;
+    }
+
+    /**
+     * @return amount of entries compressed (or stored) from their files during the last packing
+     */
+    public long getCompressedEntries() {
+        return compressedEntries;
+    }
+
+    private boolean isReproducible() {
+        return reproducibleTimeMillis != -1;
+    }
+
+    /**
+     * @return new entry having the last-modified time and permissions as they are going to be written
+     */
+    private ZipArchiveEntry createEntry(String entryName, Path file) throws IOException {
+        ZipArchiveEntry entry = new ZipArchiveEntry(entryName);
+        if( isReproducible() ){
+            entry.setTime(reproducibleTimeMillis, ZoneOffset.UTC);
+            entry.setUnixMode(isExecutable(file) ? UNIX_MODE_EXECUTABLE_FILE : UNIX_MODE_REGULAR_FILE);
+        } else {
+            entry.setTime(Files.getLastModifiedTime(file).toMillis());
+        }
+        return entry;
+    }
+
+    private static boolean isExecutable(Path file) {
+        try{
+            return Files.getPosixFilePermissions(file).contains(PosixFilePermission.OWNER_EXECUTE);
+        } catch(UnsupportedOperationException | IOException ex){
+            // no permissions available (like on Windows), nothing is executable
+            return false;
+        }
+    }
+
+    private ZipArchiveEntry findReusableEntry(ZipArchiveReader previousArchive, String entryName, int method, long fileSize, Path file) throws IOException {
+        if( previousArchive == null ){
+            return null;
+        }
+        ZipArchiveEntry previousEntry = previousArchive.getEntry(entryName);
+        if( previousEntry == null || previousEntry.isDirectory() || previousEntry.getMethod() != method || previousEntry.getSize() != fileSize ){
+            return null;
+        }
+        // compare using the precision of the ZIP-file
+        ZipArchiveEntry currentEntry = createEntry(entryName, file);
+        if( currentEntry.getDosTime() != previousEntry.getDosTime() || currentEntry.getVersionMadeBy() != previousEntry.getVersionMadeBy() || currentEntry.getExternalAttributes() != previousEntry.getExternalAttributes() ){
+            return null;
+        }
+        return previousEntry;
+    }
+
+    private static List<ChunkToCompress> splitIntoChunks(Path file, long fileSize, int method, int level, ZipArchiveEntry reusableEntry) {
+        long amountOfChunks = Math.max(1, (fileSize + CHUNK_SIZE - 1) / CHUNK_SIZE);
+        boolean memoryMapped = MEMORY_MAPPING_SUPPORTED && amountOfChunks > 1;
+        List<ChunkToCompress> chunks = new ArrayList<>();
+        for( long chunkIndex = 0; chunkIndex < amountOfChunks; chunkIndex++ ){
+            long offset = chunkIndex * CHUNK_SIZE;
+            chunks.add(new ChunkToCompress(file, offset, (int) Math.min(CHUNK_SIZE, fileSize - offset), chunkIndex == amountOfChunks - 1, memoryMapped, method, level, reusableEntry));
+        }
+        return chunks;
+    }
+
+    /**
+     * Writes the chunks (in the order of the files to pack) into the ZIP-file, as soon as all chunks of some file are available.
+     */
+    private class PackingRun {
+
+        private final Path folder;
+        private final Path zipFilePath;
+        private final ZipArchiveWriter zipArchiveWriter;
+        private final ZipArchiveReader previousArchive;
+        private final BufferPool readBuffers;
+        private final BufferPool compressionBuffers;
+        private Path multiChunkContentFile = null;
+        private PendingEntry pendingEntry = null;
+
+        PackingRun(Path folder, Path zipFilePath, ZipArchiveWriter zipArchiveWriter, ZipArchiveReader previousArchive, BufferPool readBuffers, BufferPool compressionBuffers) {
+            this.folder = folder;
+            this.zipFilePath = zipFilePath;
+            this.zipArchiveWriter = zipArchiveWriter;
+            this.previousArchive = previousArchive;
+            this.readBuffers = readBuffers;
+            this.compressionBuffers = compressionBuffers;
+        }
+
+        void writeChunk(CompressedChunk compressedChunk) throws IOException {
+            ChunkToCompress chunk = compressedChunk.chunk;
+            if( chunk.offset == 0 ){
+                pendingEntry = createPendingEntry(chunk);
+            }
+            pendingEntry.append(compressedChunk);
+            if( !chunk.isLastChunk ){
+                return;
+            }
+            PendingEntry completedEntry = pendingEntry;
+            pendingEntry = null;
+
+            String entryName = getEntryName(folder, chunk.file);
+            FlightRecorderEvents.TimedEvent zipEntryWriteEvent = FlightRecorderEvents.begin(FlightRecorderEvents.ZIP_ENTRY_WRITE);
+            if( chunk.reusableEntry != null ){
+                if( completedEntry.crc == chunk.reusableEntry.getCrc() ){
+                    zipArchiveWriter.copyRawEntry(previousArchive, chunk.reusableEntry);
+                    zipEntryWriteEvent.commit(zipFilePath.toString(), entryName, completedEntry.size);
+                    reusedEntries++;
+                    return;
+                }
+                // same size and time, but different content: rare enough for compressing on this thread
+                completedEntry = null;
+                for( ChunkToCompress chunkToCompress : splitIntoChunks(chunk.file, chunk.reusableEntry.getSize(), chunk.method, chunk.level, null) ){
+                    if( chunkToCompress.offset == 0 ){
+                        completedEntry = createPendingEntry(chunkToCompress);
+                    }
+                    completedEntry.append(compressChunk(chunkToCompress, readBuffers, compressionBuffers));
+                }
+            }
+
+            ZipArchiveEntry entry = createEntry(entryName, chunk.file);
+            entry.setMethod(chunk.method);
+            entry.setCrc(completedEntry.crc);
+            entry.setSize(completedEntry.size);
+            entry.setCompressedSize(completedEntry.compressedSize);
+            completedEntry.writeTo(entry, zipArchiveWriter, chunk.file);
+            zipEntryWriteEvent.commit(zipFilePath.toString(), entryName, completedEntry.size);
+            compressedEntries++;
+        }
+
+        private PendingEntry createPendingEntry(ChunkToCompress firstChunk) throws IOException {
+            boolean collectMultipleChunks = !firstChunk.isChecksumOnly() && !firstChunk.isLastChunk;
+            if( !collectMultipleChunks ){
+                return new PendingEntry(null, compressionBuffers);
+            }
+            // decided per entry, as the size of linked files is only known when reading them
+            if( multiChunkContentFile == null ){
+                multiChunkContentFile = Files.createTempFile(zipFilePath.toAbsolutePath().getParent(), zipFilePath.getFileName().toString(), ".part");
+            }
+            return new PendingEntry(multiChunkContentFile, compressionBuffers);
+        }
+
+        void deleteMultiChunkContentFile() throws IOException {
+            if( multiChunkContentFile != null ){
+                Files.deleteIfExists(multiChunkContentFile);
+            }
+        }
+    }
+
+    private static String getEntryName(Path folder, Path file) {
+        // sanitize windows path parts, because ZIP only allows normal slash
+        return folder.relativize(file).toString().replace("\\", "/");
+    }
+
+    private static Future<CompressedChunk> submit(ExecutorService compressionExecutor, Callable<CompressedChunk> compression) {
+        if( compressionExecutor != null ){
+            return compressionExecutor.submit(compression);
+        }
+        FutureTask<CompressedChunk> compressionTask = new FutureTask<>(compression);
+        compressionTask.run();
+        return compressionTask;
+    }
+
+    private static CompressedChunk awaitChunk(Future<CompressedChunk> chunkInProgress) throws IOException {
+        try{
+            return chunkInProgress.get();
+        } catch(InterruptedException ex){
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while packing.");
+        } catch(ExecutionException ex){
+            if( ex.getCause() instanceof IOException ){
+                throw (IOException) ex.getCause();
+            }
+            throw new IOException(ex.getCause());
+        }
+    }
+
+    private static CompressedChunk compressChunk(ChunkToCompress chunk, BufferPool readBuffers, BufferPool compressionBuffers) throws IOException {
+        boolean checksumOnly = chunk.isChecksumOnly();
+        int dictionaryLength = checksumOnly ? 0 : (int) Math.min(DICTIONARY_SIZE, chunk.offset);
+        CRC32 crc = new CRC32();
+        try(FileChannel fileChannel = FileChannel.open(chunk.file, StandardOpenOption.READ)){
+            if( chunk.offset + chunk.length > fileChannel.size() ){
+                throw new EOFException("File got shorter while packing: " + chunk.file);
+            }
+            MappedByteBuffer mappedContent = null;
+            if( chunk.memoryMapped ){
+                mappedContent = fileChannel.map(FileChannel.MapMode.READ_ONLY, chunk.offset - dictionaryLength, dictionaryLength + chunk.length);
+            }
+            if( checksumOnly && mappedContent != null ){
+                // content gets transferred from the file (or the previous ZIP-file) later, so no need to copy anything
+                mappedContent.position(dictionaryLength);
+                crc.update(mappedContent);
+                return new CompressedChunk(chunk, crc.getValue(), null, 0);
+            }
+
+            byte[] content = readBuffers.take();
+            try{
+                if( mappedContent != null ){
+                    mappedContent.get(content, 0, dictionaryLength + chunk.length);
+                } else {
+                    ByteBuffer contentBuffer = ByteBuffer.wrap(content, 0, dictionaryLength + chunk.length);
+                    long readPosition = chunk.offset - dictionaryLength;
+                    while( contentBuffer.hasRemaining() ){
+                        int readBytes = fileChannel.read(contentBuffer, readPosition);
+                        if( readBytes < 0 ){
+                            throw new EOFException("File got shorter while packing: " + chunk.file);
+                        }
+                        readPosition += readBytes;
+                    }
+                }
+                crc.update(content, dictionaryLength, chunk.length);
+                if( checksumOnly ){
+                    return new CompressedChunk(chunk, crc.getValue(), null, 0);
+                }
+                return deflateChunk(chunk, crc.getValue(), content, dictionaryLength, compressionBuffers);
+            } finally{
+                readBuffers.release(content);
+            }
+        }
+    }
+
+    private static CompressedChunk deflateChunk(ChunkToCompress chunk, long crc, byte[] content, int dictionaryLength, BufferPool compressionBuffers) throws IOException {
+        byte[] compressedContent = compressionBuffers.take();
+        int compressedLength = 0;
+        Deflater deflater = new Deflater(chunk.level, true);
+        try{
+            if( dictionaryLength > 0 ){
+                deflater.setDictionary(content, 0, dictionaryLength);
+            }
+            deflater.setInput(content, dictionaryLength, chunk.length);
+            if( chunk.isLastChunk ){
+                deflater.finish();
+            }
+            // sync-flush ends at some byte boundary without marking the final block, so the next chunk can be appended
+            int flushMode = chunk.isLastChunk ? Deflater.NO_FLUSH : Deflater.SYNC_FLUSH;
+            while( true ){
+                if( compressedLength == compressedContent.length ){
+                    // bigger than expected, the enlarged buffer does not go back into the pool
+                    byte[] pooledBuffer = compressedContent;
+                    compressedContent = Arrays.copyOf(pooledBuffer, pooledBuffer.length * 2);
+                    compressionBuffers.release(pooledBuffer);
+                }
+                compressedLength += deflater.deflate(compressedContent, compressedLength, compressedContent.length - compressedLength, flushMode);
+                boolean done = chunk.isLastChunk ? deflater.finished() : compressedLength < compressedContent.length;
+                if( done ){
+                    break;
+                }
+            }
+        } catch(RuntimeException ex){
+            compressionBuffers.release(compressedContent);
+            throw ex;
+        } finally{
+            deflater.end();
+        }
+        return new CompressedChunk(chunk, crc, compressedContent, compressedLength);
+    }
+
+    /**
+     * Combines the CRC-32 of two consecutive blocks of data, same algorithm as "crc32_combine" of zlib.
+     *
+     * @param firstCrc
+     * @param secondCrc
+     * @param secondLength
+     *
+     * @return CRC-32 of both blocks
+     */
+    static long combineCrc(long firstCrc, long secondCrc, long secondLength) {
+        if( secondLength <= 0 ){
+            return firstCrc;
+        }
+        long[] even = new long[32];
+        long[] odd = new long[32];
+
+        // operator for one zero bit
+        odd[0] = 0xEDB88320L;
+        long row = 1;
+        for( int n = 1; n < 32; n++ ){
+            odd[n] = row;
+            row <<= 1;
+        }
+        // operator for two and four zero bits
+        squareGf2Matrix(even, odd);
+        squareGf2Matrix(odd, even);
+
+        long crc = firstCrc;
+        long remainingLength = secondLength;
+        do{
+            squareGf2Matrix(even, odd);
+            if( (remainingLength & 1) != 0 ){
+                crc = multiplyGf2Matrix(even, crc);
+            }
+            remainingLength >>= 1;
+            if( remainingLength == 0 ){
+                break;
+            }
+            squareGf2Matrix(odd, even);
+            if( (remainingLength & 1) != 0 ){
+                crc = multiplyGf2Matrix(odd, crc);
+            }
+            remainingLength >>= 1;
+        } while( remainingLength != 0 );
+        return crc ^ secondCrc;
+    }
+
+    private static long multiplyGf2Matrix(long[] matrix, long vector) {
+        long sum = 0;
+        long remainingVector = vector;
+        for( int index = 0; remainingVector != 0; index++ ){
+            if( (remainingVector & 1) != 0 ){
+                sum ^= matrix[index];
+            }
+            remainingVector >>>= 1;
+        }
+        return sum;
+    }
+
+    private static void squareGf2Matrix(long[] square, long[] matrix) {
+        for( int n = 0; n < 32; n++ ){
+            square[n] = multiplyGf2Matrix(matrix, matrix[n]);
+        }
+    }
+
+
+    private static class ChunkToCompress {
+
+        private final Path file;
+        private final long offset;
+        private final int length;
+        private final boolean isLastChunk;
+        private final boolean memoryMapped;
+        private final int method;
+        private final int level;
+        private final ZipArchiveEntry reusableEntry;
+
+        ChunkToCompress(Path file, long offset, int length, boolean isLastChunk, boolean memoryMapped, int method, int level, ZipArchiveEntry reusableEntry) {
+            this.file = file;
+            this.offset = offset;
+            this.length = length;
+            this.isLastChunk = isLastChunk;
+            this.memoryMapped = memoryMapped;
+            this.method = method;
+            this.level = level;
+            this.reusableEntry = reusableEntry;
+        }
+
+        /**
+         * @return true, when the content is not compressed, as it gets stored or copied from the previous ZIP-file
+         */
+        boolean isChecksumOnly() {
+            return method == ZipArchiveEntry.METHOD_STORED || reusableEntry != null;
+        }
+    }
+
+    private static class CompressedChunk {
+
+        private final ChunkToCompress chunk;
+        private final long crc;
+        private final byte[] compressedContent;
+        private final int compressedLength;
+
+        CompressedChunk(ChunkToCompress chunk, long crc, byte[] compressedContent, int compressedLength) {
+            this.chunk = chunk;
+            this.crc = crc;
+            this.compressedContent = compressedContent;
+            this.compressedLength = compressedLength;
+        }
+    }
+
+    /**
+     * Collects the compressed chunks of one file until all of them are available.
+     */
+    private static class PendingEntry {
+
+        private final FileChannel multiChunkContent;
+        private final BufferPool compressionBuffers;
+        private CompressedChunk onlyChunk = null;
+        private long crc = 0;
+        private long size = 0;
+        private long compressedSize = 0;
+
+        /**
+         * @param multiChunkContentFile file to collect the compressed chunks in, null when having only one chunk or storing the file
+         * @param compressionBuffers    pool to return the buffers of written chunks to
+         *
+         * @throws IOException
+         */
+        PendingEntry(Path multiChunkContentFile, BufferPool compressionBuffers) throws IOException {
+            this.compressionBuffers = compressionBuffers;
+            if( multiChunkContentFile != null ){
+                this.multiChunkContent = FileChannel.open(multiChunkContentFile, StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+            } else {
+                this.multiChunkContent = null;
+            }
+        }
+
+        void append(CompressedChunk compressedChunk) throws IOException {
+            crc = size == 0 ? compressedChunk.crc : combineCrc(crc, compressedChunk.crc, compressedChunk.chunk.length);
+            size += compressedChunk.chunk.length;
+            if( compressedChunk.chunk.isChecksumOnly() ){
+                compressedSize += compressedChunk.chunk.length;
+                return;
+            }
+            compressedSize += compressedChunk.compressedLength;
+            if( multiChunkContent == null ){
+                onlyChunk = compressedChunk;
+                return;
+            }
+            try{
+                ByteBuffer chunkContent = ByteBuffer.wrap(compressedChunk.compressedContent, 0, compressedChunk.compressedLength);
+                while( chunkContent.hasRemaining() ){
+                    multiChunkContent.write(chunkContent);
+                }
+            } finally{
+                compressionBuffers.release(compressedChunk.compressedContent);
+            }
+        }
+
+        void writeTo(ZipArchiveEntry entry, ZipArchiveWriter zipArchiveWriter, Path file) throws IOException {
+            if( entry.getMethod() == ZipArchiveEntry.METHOD_STORED ){
+                try(FileChannel storedContent = FileChannel.open(file, StandardOpenOption.READ)){
+                    zipArchiveWriter.writeCompressedEntry(entry, storedContent);
+                }
+                return;
+            }
+            if( multiChunkContent == null ){
+                try{
+                    zipArchiveWriter.writeCompressedEntry(entry, ByteBuffer.wrap(onlyChunk.compressedContent, 0, onlyChunk.compressedLength));
+                } finally{
+                    compressionBuffers.release(onlyChunk.compressedContent);
+                }
+                return;
+            }
+            try{
+                zipArchiveWriter.writeCompressedEntry(entry, multiChunkContent);
+            } finally{
+                multiChunkContent.close();
+            }
+        }
+    }
+
+    /**
+     * Hands out byte-arrays of the same size, creating them lazily until the maximum amount of buffers exists. When all buffers are in
+     * use, taking another one waits until some buffer gets released.
+     */
+    private static class BufferPool {
+
+        private final BlockingQueue<byte[]> availableBuffers;
+        private final int maximumBuffers;
+        private final int bufferSize;
+        private int createdBuffers = 0;
+
+        BufferPool(int maximumBuffers, int bufferSize) {
+            this.availableBuffers = new ArrayBlockingQueue<>(maximumBuffers);
+            this.maximumBuffers = maximumBuffers;
+            this.bufferSize = bufferSize;
+        }
+
+        byte[] take() throws InterruptedIOException {
+            byte[] buffer = availableBuffers.poll();
+            if( buffer != null ){
+                return buffer;
+            }
+            synchronized(this){
+                if( createdBuffers < maximumBuffers ){
+                    createdBuffers++;
+                    return new byte[bufferSize];
+                }
+            }
+            try{
+                return availableBuffers.take();
+            } catch(InterruptedException ex){
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for some buffer.");
+            }
+        }
+
+        void release(byte[] buffer) {
+            // enlarged buffers are not part of the pool
+            if( buffer != null && buffer.length == bufferSize ){
+                availableBuffers.offer(buffer);
+            }
+        }
+    }
+}
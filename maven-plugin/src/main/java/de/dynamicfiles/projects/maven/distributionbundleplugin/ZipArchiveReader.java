@@ -0,0 +1,466 @@
+/*
+ * Copyright 2018 Danny Althoff
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.dynamicfiles.projects.maven.distributionbundleplugin;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+import java.util.zip.ZipException;
+
+/**
+ * Reads the central directory of some ZIP-file (or some ZIP-file stored inside another file) without touching the entry-data,
+ * making it possible to look up entries or copying them without decompressing.
+ *
+ * @author Danny Althoff
+ */
+public class ZipArchiveReader implements Closeable {
+
+    static final int LOCAL_HEADER_SIGNATURE = 0x04034b50;
+    static final int DATA_DESCRIPTOR_SIGNATURE = 0x08074b50;
+    static final int CENTRAL_DIRECTORY_SIGNATURE = 0x02014b50;
+    static final int END_OF_CENTRAL_DIRECTORY_SIGNATURE = 0x06054b50;
+    static final int ZIP64_END_OF_CENTRAL_DIRECTORY_SIGNATURE = 0x06064b50;
+    static final int ZIP64_END_OF_CENTRAL_DIRECTORY_LOCATOR_SIGNATURE = 0x07064b50;
+    static final int ZIP64_EXTRA_FIELD_ID = 0x0001;
+
+    static final int LOCAL_HEADER_LENGTH = 30;
+    static final int CENTRAL_DIRECTORY_HEADER_LENGTH = 46;
+    static final int END_OF_CENTRAL_DIRECTORY_LENGTH = 22;
+    static final int ZIP64_END_OF_CENTRAL_DIRECTORY_LENGTH = 56;
+    static final int ZIP64_END_OF_CENTRAL_DIRECTORY_LOCATOR_LENGTH = 20;
+
+    static final long ZIP64_MAGIC_VALUE = 0xFFFFFFFFL;
+    static final int ZIP64_MAGIC_COUNT = 0xFFFF;
+
+    private final FileChannel channel;
+    private final boolean closeChannel;
+    private final long archiveStart;
+    private final long archiveLength;
+    private final List<ZipArchiveEntry> entries = new ArrayList<>();
+    private final Map<String, ZipArchiveEntry> entriesByName = new HashMap<>();
+    private long centralDirectoryStart;
+
+    public ZipArchiveReader(Path archive) throws IOException {
+        this(FileChannel.open(archive, StandardOpenOption.READ), true);
+    }
+
+    private ZipArchiveReader(FileChannel channel, boolean closeChannel) throws IOException {
+        this(channel, 0, channel.size(), closeChannel);
+    }
+
+    /**
+     * Reads some ZIP-file, which is stored inside a bigger file without being compressed (e.g. nested jar-files).
+     *
+     * @param channel       the file containing the ZIP-file, will not be closed by this reader
+     * @param archiveStart  position of the first byte of that ZIP-file
+     * @param archiveLength length of the ZIP-file
+     *
+     * @throws IOException
+     */
+    public ZipArchiveReader(FileChannel channel, long archiveStart, long archiveLength) throws IOException {
+        this(channel, archiveStart, archiveLength, false);
+    }
+
+    private ZipArchiveReader(FileChannel channel, long archiveStart, long archiveLength, boolean closeChannel) throws IOException {
+        this.channel = channel;
+        this.closeChannel = closeChannel;
+        this.archiveStart = archiveStart;
+        this.archiveLength = archiveLength;
+        try{
+            readCentralDirectory();
+        } catch(IOException | RuntimeException ex){
+            close();
+            throw ex;
+        }
+    }
+
+    public List<ZipArchiveEntry> getEntries() {
+        return Collections.unmodifiableList(entries);
+    }
+
+    public ZipArchiveEntry getEntry(String name) {
+        return entriesByName.get(name);
+    }
+
+    public FileChannel getChannel() {
+        return channel;
+    }
+
+    /**
+     * Some ZIP-files are having data in front of the first entry (e.g. launch scripts of executable jar-files).
+     *
+     * @return amount of bytes in front of the first entry
+     */
+    public long getPreambleLength() {
+        long firstLocalHeader = entries.stream()
+                .mapToLong(ZipArchiveEntry::getLocalHeaderOffset)
+                .min()
+                .orElse(centralDirectoryStart);
+        return Math.min(firstLocalHeader, centralDirectoryStart) - archiveStart;
+    }
+
+    public long getArchiveStart() {
+        return archiveStart;
+    }
+
+    /**
+     * Position of the entry data, right after the local header.
+     *
+     * @param entry
+     *
+     * @return absolute position inside the underlying file
+     *
+     * @throws IOException
+     */
+    public long getDataOffset(ZipArchiveEntry entry) throws IOException {
+        ByteBuffer localHeader = readFully(entry.getLocalHeaderOffset(), LOCAL_HEADER_LENGTH);
+        if( localHeader.getInt(0) != LOCAL_HEADER_SIGNATURE ){
+            throw new ZipException("Invalid local header found for entry: " + entry.getName());
+        }
+        int nameLength = Short.toUnsignedInt(localHeader.getShort(26));
+        int extraLength = Short.toUnsignedInt(localHeader.getShort(28));
+        return entry.getLocalHeaderOffset() + LOCAL_HEADER_LENGTH + nameLength + extraLength;
+    }
+
+    /**
+     * Length of the whole entry as stored inside the file: local header, compressed data and the optional data descriptor.
+     *
+     * @param entry
+     *
+     * @return
+     *
+     * @throws IOException
+     */
+    public long getRawLength(ZipArchiveEntry entry) throws IOException {
+        long dataEnd = getDataOffset(entry) + entry.getCompressedSize();
+        long rawLength = dataEnd - entry.getLocalHeaderOffset();
+        if( (entry.getFlags() & ZipArchiveEntry.FLAG_DATA_DESCRIPTOR) != 0 ){
+            boolean isZip64 = entry.getSize() >= ZIP64_MAGIC_VALUE || entry.getCompressedSize() >= ZIP64_MAGIC_VALUE;
+            int descriptorLength = isZip64 ? 20 : 12;
+            ByteBuffer possibleSignature = readFully(dataEnd, 4);
+            if( possibleSignature.getInt(0) == DATA_DESCRIPTOR_SIGNATURE ){
+                descriptorLength += 4;
+            }
+            rawLength += descriptorLength;
+        }
+        return rawLength;
+    }
+
+    /**
+     * Copies the whole entry (local header, compressed data, data descriptor) without any modification.
+     *
+     * @param entry
+     * @param target
+     *
+     * @return amount of copied bytes
+     *
+     * @throws IOException
+     */
+    public long transferRawEntry(ZipArchiveEntry entry, WritableByteChannel target) throws IOException {
+        long rawLength = getRawLength(entry);
+        transferRange(entry.getLocalHeaderOffset(), rawLength, target);
+        return rawLength;
+    }
+
+    /**
+     * Copies some part of the underlying file.
+     *
+     * @param position absolute position inside the underlying file
+     * @param length
+     * @param target
+     *
+     * @throws IOException
+     */
+    public void transferRange(long position, long length, WritableByteChannel target) throws IOException {
+        long transferred = 0;
+        while( transferred < length ){
+            long transferredNow = channel.transferTo(position + transferred, length - transferred, target);
+            if( transferredNow <= 0 ){
+                if( position + transferred >= channel.size() ){
+                    throw new EOFException("Unexpected end of ZIP-file.");
+                }
+                continue;
+            }
+            transferred += transferredNow;
+        }
+    }
+
+    /**
+     * Provides the decompressed content of some entry.
+     *
+     * @param entry
+     *
+     * @return
+     *
+     * @throws IOException
+     */
+    public InputStream getInputStream(ZipArchiveEntry entry) throws IOException {
+        InputStream rawInputStream = new ChannelRangeInputStream(channel, getDataOffset(entry), entry.getCompressedSize());
+        switch(entry.getMethod()) {
+            case ZipArchiveEntry.METHOD_STORED:
+                return rawInputStream;
+            case ZipArchiveEntry.METHOD_DEFLATED:
+                Inflater inflater = new Inflater(true);
+                return new InflaterInputStream(rawInputStream, inflater, 64 * 1024) {
+                    private boolean closed = false;
+
+                    @Override
+                    public void close() throws IOException {
+                        if( !closed ){
+                            closed = true;
+                            super.close();
+                            inflater.end();
+                        }
+                    }
+                };
+            default:
+                throw new ZipException("Unsupported compression method " + entry.getMethod() + " for entry: " + entry.getName());
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if( closeChannel ){
+            channel.close();
+        }
+    }
+
+    private void readCentralDirectory() throws IOException {
+        long endOfCentralDirectory = findEndOfCentralDirectory();
+        ByteBuffer endRecord = readFully(endOfCentralDirectory, END_OF_CENTRAL_DIRECTORY_LENGTH);
+        long entryCount = Short.toUnsignedInt(endRecord.getShort(10));
+        long centralDirectorySize = Integer.toUnsignedLong(endRecord.getInt(12));
+        long centralDirectoryOffset = Integer.toUnsignedLong(endRecord.getInt(16));
+
+        // position of the record directly following the central directory
+        long centralDirectoryEnd = endOfCentralDirectory;
+
+        long locatorPosition = endOfCentralDirectory - ZIP64_END_OF_CENTRAL_DIRECTORY_LOCATOR_LENGTH;
+        if( locatorPosition >= archiveStart && readFully(locatorPosition, 4).getInt(0) == ZIP64_END_OF_CENTRAL_DIRECTORY_LOCATOR_SIGNATURE ){
+            long recordedZip64EndOffset = readFully(locatorPosition + 8, 8).getLong(0);
+            // might be shifted by some preamble, so check recorded location first, otherwise expect it right before the locator
+            long zip64EndPosition = archiveStart + recordedZip64EndOffset;
+            if( zip64EndPosition + 4 > locatorPosition || readFully(zip64EndPosition, 4).getInt(0) != ZIP64_END_OF_CENTRAL_DIRECTORY_SIGNATURE ){
+                zip64EndPosition = locatorPosition - ZIP64_END_OF_CENTRAL_DIRECTORY_LENGTH;
+            }
+            ByteBuffer zip64EndRecord = readFully(zip64EndPosition, ZIP64_END_OF_CENTRAL_DIRECTORY_LENGTH);
+            if( zip64EndRecord.getInt(0) != ZIP64_END_OF_CENTRAL_DIRECTORY_SIGNATURE ){
+                throw new ZipException("Invalid ZIP64 end of central directory record.");
+            }
+            entryCount = zip64EndRecord.getLong(32);
+            centralDirectorySize = zip64EndRecord.getLong(40);
+            centralDirectoryOffset = zip64EndRecord.getLong(48);
+            centralDirectoryEnd = zip64EndPosition;
+        }
+
+        // all recorded offsets might be relative to some other start (e.g. prepended launch-script without adjusted offsets)
+        centralDirectoryStart = centralDirectoryEnd - centralDirectorySize;
+        if( centralDirectoryStart < archiveStart ){
+            throw new ZipException("Invalid central directory size.");
+        }
+        long offsetShift = centralDirectoryStart - centralDirectoryOffset;
+
+        try(DataInputStream centralDirectory = new DataInputStream(new BufferedInputStream(new ChannelRangeInputStream(channel, centralDirectoryStart, centralDirectorySize), 64 * 1024))){
+            byte[] headerBytes = new byte[CENTRAL_DIRECTORY_HEADER_LENGTH];
+            ByteBuffer header = ByteBuffer.wrap(headerBytes).order(ByteOrder.LITTLE_ENDIAN);
+            for( long entryIndex = 0; entryIndex < entryCount; entryIndex++ ){
+                centralDirectory.readFully(headerBytes);
+                if( header.getInt(0) != CENTRAL_DIRECTORY_SIGNATURE ){
+                    throw new ZipException("Invalid central directory header.");
+                }
+                byte[] nameBytes = new byte[Short.toUnsignedInt(header.getShort(28))];
+                byte[] extra = new byte[Short.toUnsignedInt(header.getShort(30))];
+                byte[] comment = new byte[Short.toUnsignedInt(header.getShort(32))];
+                centralDirectory.readFully(nameBytes);
+                centralDirectory.readFully(extra);
+                centralDirectory.readFully(comment);
+
+                ZipArchiveEntry entry = new ZipArchiveEntry(nameBytes);
+                entry.setVersionMadeBy(Short.toUnsignedInt(header.getShort(4)));
+                entry.setVersionNeeded(Short.toUnsignedInt(header.getShort(6)));
+                entry.setFlags(Short.toUnsignedInt(header.getShort(8)));
+                entry.setMethod(Short.toUnsignedInt(header.getShort(10)));
+                entry.setDosTime(Integer.toUnsignedLong(header.getInt(12)));
+                entry.setCrc(Integer.toUnsignedLong(header.getInt(16)));
+                entry.setInternalAttributes(Short.toUnsignedInt(header.getShort(36)));
+                entry.setExternalAttributes(Integer.toUnsignedLong(header.getInt(38)));
+                entry.setComment(comment);
+
+                long compressedSize = Integer.toUnsignedLong(header.getInt(20));
+                long size = Integer.toUnsignedLong(header.getInt(24));
+                long localHeaderOffset = Integer.toUnsignedLong(header.getInt(42));
+
+                // ZIP64 extra field only contains the values being too big for the normal header fields (in this order)
+                if( size == ZIP64_MAGIC_VALUE || compressedSize == ZIP64_MAGIC_VALUE || localHeaderOffset == ZIP64_MAGIC_VALUE ){
+                    ByteBuffer zip64Values = findExtraField(extra, ZIP64_EXTRA_FIELD_ID);
+                    if( zip64Values == null ){
+                        throw new ZipException("Missing ZIP64 extra field for entry: " + entry.getName());
+                    }
+                    if( size == ZIP64_MAGIC_VALUE ){
+                        size = zip64Values.getLong();
+                    }
+                    if( compressedSize == ZIP64_MAGIC_VALUE ){
+                        compressedSize = zip64Values.getLong();
+                    }
+                    if( localHeaderOffset == ZIP64_MAGIC_VALUE ){
+                        localHeaderOffset = zip64Values.getLong();
+                    }
+                }
+                entry.setExtra(removeExtraField(extra, ZIP64_EXTRA_FIELD_ID));
+                entry.setSize(size);
+                entry.setCompressedSize(compressedSize);
+                entry.setLocalHeaderOffset(localHeaderOffset + offsetShift);
+
+                entries.add(entry);
+                // first one wins, same as java.util.zip.ZipFile
+                entriesByName.putIfAbsent(entry.getName(), entry);
+            }
+        }
+    }
+
+    private long findEndOfCentralDirectory() throws IOException {
+        if( archiveLength < END_OF_CENTRAL_DIRECTORY_LENGTH ){
+            throw new ZipException("File is too small to be some ZIP-file.");
+        }
+        // the record is at the end, but might be followed by some comment of up to 64KB
+        long searchLength = Math.min(archiveLength, END_OF_CENTRAL_DIRECTORY_LENGTH + 0xFFFF);
+        long searchStart = archiveStart + archiveLength - searchLength;
+        ByteBuffer searchArea = readFully(searchStart, (int) searchLength);
+        for( int position = (int) searchLength - END_OF_CENTRAL_DIRECTORY_LENGTH; position >= 0; position-- ){
+            if( searchArea.getInt(position) == END_OF_CENTRAL_DIRECTORY_SIGNATURE ){
+                int commentLength = Short.toUnsignedInt(searchArea.getShort(position + 20));
+                if( position + END_OF_CENTRAL_DIRECTORY_LENGTH + commentLength <= searchLength ){
+                    return searchStart + position;
+                }
+            }
+        }
+        throw new ZipException("Could not find end of central directory, file seems to be no ZIP-file.");
+    }
+
+    private ByteBuffer readFully(long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+        while( buffer.hasRemaining() ){
+            if( channel.read(buffer, position + buffer.position()) < 0 ){
+                throw new EOFException("Unexpected end of ZIP-file.");
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    static ByteBuffer findExtraField(byte[] extra, int headerId) {
+        ByteBuffer extraBuffer = ByteBuffer.wrap(extra).order(ByteOrder.LITTLE_ENDIAN);
+        while( extraBuffer.remaining() >= 4 ){
+            int currentHeaderId = Short.toUnsignedInt(extraBuffer.getShort());
+            int dataLength = Short.toUnsignedInt(extraBuffer.getShort());
+            if( dataLength > extraBuffer.remaining() ){
+                return null;
+            }
+            if( currentHeaderId == headerId ){
+                ByteBuffer fieldData = extraBuffer.slice().order(ByteOrder.LITTLE_ENDIAN);
+                fieldData.limit(dataLength);
+                return fieldData;
+            }
+            extraBuffer.position(extraBuffer.position() + dataLength);
+        }
+        return null;
+    }
+
+    static byte[] removeExtraField(byte[] extra, int headerId) {
+        if( findExtraField(extra, headerId) == null ){
+            return extra;
+        }
+        ByteBuffer source = ByteBuffer.wrap(extra).order(ByteOrder.LITTLE_ENDIAN);
+        ByteBuffer result = ByteBuffer.allocate(extra.length).order(ByteOrder.LITTLE_ENDIAN);
+        while( source.remaining() >= 4 ){
+            int fieldStart = source.position();
+            int currentHeaderId = Short.toUnsignedInt(source.getShort());
+            int dataLength = Math.min(Short.toUnsignedInt(source.getShort()), source.remaining());
+            source.position(source.position() + dataLength);
+            if( currentHeaderId != headerId ){
+                result.put(extra, fieldStart, 4 + dataLength);
+            }
+        }
+        byte[] cleanedExtra = new byte[result.position()];
+        System.arraycopy(result.array(), 0, cleanedExtra, 0, cleanedExtra.length);
+        return cleanedExtra;
+    }
+
+    /**
+     * Simple stream over some part of the underlying file, using positional reads (not changing the position of the channel).
+     */
+    private static class ChannelRangeInputStream extends InputStream {
+
+        private final FileChannel channel;
+        private long position;
+        private final long end;
+
+        ChannelRangeInputStream(FileChannel channel, long start, long length) {
+            this.channel = channel;
+            this.position = start;
+            this.end = start + length;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] singleByte = new byte[1];
+            int readBytes = read(singleByte, 0, 1);
+            return readBytes <= 0 ? -1 : Byte.toUnsignedInt(singleByte[0]);
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            if( position >= end ){
+                return -1;
+            }
+            int bytesToRead = (int) Math.min(length, end - position);
+            int readBytes = channel.read(ByteBuffer.wrap(buffer, offset, bytesToRead), position);
+            if( readBytes < 0 ){
+                throw new EOFException("Unexpected end of ZIP-file.");
+            }
+            position += readBytes;
+            return readBytes;
+        }
+
+        @Override
+        public long skip(long n) {
+            long skipped = Math.max(0, Math.min(n, end - position));
+            position += skipped;
+            return skipped;
+        }
+
+        @Override
+        public int available() {
+            return (int) Math.min(Integer.MAX_VALUE, end - position);
+        }
+    }
+}
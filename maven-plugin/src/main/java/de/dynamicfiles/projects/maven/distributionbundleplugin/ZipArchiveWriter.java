@@ -0,0 +1,368 @@
+/*
+ * Copyright 2018 Danny Althoff
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.dynamicfiles.projects.maven.distributionbundleplugin;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Writes ZIP-files entry by entry, with the possibility to copy already compressed entries of other ZIP-files without
+ * decompressing and compressing them again.
+ * <p>
+ * Headers and small contents are collected inside some direct buffer, which is written to the target in big batches instead of
+ * doing one write per header. These buffers are pooled and re-used by the next writer.
+ *
+ * @author Danny Althoff
+ */
+public class ZipArchiveWriter implements Closeable {
+
+    private static final int VERSION_DEFAULT = 20;
+    private static final int VERSION_ZIP64 = 45;
+    private static final int OUTPUT_BUFFER_SIZE = 1024 * 1024;
+    private static final int MAXIMUM_POOLED_OUTPUT_BUFFERS = 4;
+    private static final Queue<ByteBuffer> OUTPUT_BUFFER_POOL = new ConcurrentLinkedQueue<>();
+
+    private final WritableByteChannel target;
+    private ByteBuffer outputBuffer;
+    private final List<ZipArchiveEntry> writtenEntries = new ArrayList<>();
+    private long position = 0;
+    private boolean finished = false;
+
+    public ZipArchiveWriter(WritableByteChannel target) {
+        this.target = target;
+        ByteBuffer pooledOutputBuffer = OUTPUT_BUFFER_POOL.poll();
+        this.outputBuffer = pooledOutputBuffer == null ? ByteBuffer.allocateDirect(OUTPUT_BUFFER_SIZE) : pooledOutputBuffer;
+        this.outputBuffer.clear();
+    }
+
+    /**
+     * @return amount of bytes written so far
+     */
+    public long getPosition() {
+        return position;
+    }
+
+    /**
+     * Copies the data in front of the first entry (e.g. launch scripts of executable jar-files).
+     *
+     * @param source
+     *
+     * @throws IOException
+     */
+    public void copyPreamble(ZipArchiveReader source) throws IOException {
+        long preambleLength = source.getPreambleLength();
+        if( preambleLength > 0 ){
+            flushOutputBuffer();
+            source.transferRange(source.getArchiveStart(), preambleLength, target);
+            position += preambleLength;
+        }
+    }
+
+    /**
+     * Copies the entry without decompressing, just the offset inside the central directory gets adjusted.
+     *
+     * @param source
+     * @param entry
+     *
+     * @throws IOException
+     */
+    public void copyRawEntry(ZipArchiveReader source, ZipArchiveEntry entry) throws IOException {
+        ZipArchiveEntry writtenEntry = entry.copy();
+        writtenEntry.setLocalHeaderOffset(position);
+        flushOutputBuffer();
+        position += source.transferRawEntry(entry, target);
+        writtenEntries.add(writtenEntry);
+    }
+
+    /**
+     * Writes some entry having all content in memory, compressed using the method set in given entry.
+     *
+     * @param entry   only name, method, time, comment and attributes are used
+     * @param content
+     *
+     * @throws IOException
+     */
+    public void writeEntry(ZipArchiveEntry entry, byte[] content) throws IOException {
+        CRC32 crc = new CRC32();
+        crc.update(content);
+
+        byte[] storedContent = content;
+        if( entry.getMethod() == ZipArchiveEntry.METHOD_DEFLATED ){
+            Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+            try{
+                deflater.setInput(content);
+                deflater.finish();
+                ByteArrayOutputStream compressedContent = new ByteArrayOutputStream(Math.max(64, content.length / 2));
+                byte[] buffer = new byte[64 * 1024];
+                while( !deflater.finished() ){
+                    int compressedLength = deflater.deflate(buffer);
+                    compressedContent.write(buffer, 0, compressedLength);
+                }
+                storedContent = compressedContent.toByteArray();
+            } finally{
+                deflater.end();
+            }
+        } else if( entry.getMethod() != ZipArchiveEntry.METHOD_STORED ){
+            throw new IOException("Unsupported compression method: " + entry.getMethod());
+        }
+
+        ZipArchiveEntry writtenEntry = entry.copy();
+        writtenEntry.setCrc(crc.getValue());
+        writtenEntry.setSize(content.length);
+        writtenEntry.setCompressedSize(storedContent.length);
+        writeLocalHeader(writtenEntry);
+        writeFully(ByteBuffer.wrap(storedContent));
+        writtenEntries.add(writtenEntry);
+    }
+
+    /**
+     * Writes some entry which content was already compressed by the caller (e.g. on some other thread).
+     *
+     * @param entry             crc, size, compressed size and method have to be set already
+     * @param compressedContent all remaining bytes are written as content of this entry
+     *
+     * @throws IOException
+     */
+    public void writeCompressedEntry(ZipArchiveEntry entry, ByteBuffer compressedContent) throws IOException {
+        ZipArchiveEntry writtenEntry = entry.copy();
+        writtenEntry.setCompressedSize(compressedContent.remaining());
+        writeLocalHeader(writtenEntry);
+        writeFully(compressedContent);
+        writtenEntries.add(writtenEntry);
+    }
+
+    /**
+     * Writes some entry which content was already compressed into some file by the caller, used for content too big for keeping it
+     * in memory. For stored entries this can be the original file itself.
+     *
+     * @param entry             crc, size, compressed size and method have to be set already
+     * @param compressedContent the first "compressed size" bytes of this file are written as content of this entry
+     *
+     * @throws IOException
+     */
+    public void writeCompressedEntry(ZipArchiveEntry entry, FileChannel compressedContent) throws IOException {
+        ZipArchiveEntry writtenEntry = entry.copy();
+        writeLocalHeader(writtenEntry);
+        flushOutputBuffer();
+        long length = writtenEntry.getCompressedSize();
+        long transferred = 0;
+        while( transferred < length ){
+            long transferredNow = compressedContent.transferTo(transferred, length - transferred, target);
+            if( transferredNow <= 0 ){
+                if( transferred >= compressedContent.size() ){
+                    throw new EOFException("Unexpected end of compressed content.");
+                }
+                continue;
+            }
+            transferred += transferredNow;
+        }
+        position += length;
+        writtenEntries.add(writtenEntry);
+    }
+
+    /**
+     * Writes the central directory, after this no more entries can be added.
+     *
+     * @throws IOException
+     */
+    public void finish() throws IOException {
+        if( finished ){
+            return;
+        }
+        finished = true;
+
+        long centralDirectoryOffset = position;
+        for( ZipArchiveEntry entry : writtenEntries ){
+            writeCentralDirectoryHeader(entry);
+        }
+        long centralDirectorySize = position - centralDirectoryOffset;
+        long entryCount = writtenEntries.size();
+
+        boolean requiresZip64 = entryCount >= ZipArchiveReader.ZIP64_MAGIC_COUNT
+                || centralDirectorySize >= ZipArchiveReader.ZIP64_MAGIC_VALUE
+                || centralDirectoryOffset >= ZipArchiveReader.ZIP64_MAGIC_VALUE;
+        if( requiresZip64 ){
+            long zip64EndOffset = position;
+            ByteBuffer zip64End = allocate(ZipArchiveReader.ZIP64_END_OF_CENTRAL_DIRECTORY_LENGTH + ZipArchiveReader.ZIP64_END_OF_CENTRAL_DIRECTORY_LOCATOR_LENGTH);
+            zip64End.putInt(ZipArchiveReader.ZIP64_END_OF_CENTRAL_DIRECTORY_SIGNATURE);
+            zip64End.putLong(ZipArchiveReader.ZIP64_END_OF_CENTRAL_DIRECTORY_LENGTH - 12);
+            zip64End.putShort((short) VERSION_ZIP64);
+            zip64End.putShort((short) VERSION_ZIP64);
+            zip64End.putInt(0);
+            zip64End.putInt(0);
+            zip64End.putLong(entryCount);
+            zip64End.putLong(entryCount);
+            zip64End.putLong(centralDirectorySize);
+            zip64End.putLong(centralDirectoryOffset);
+            // locator
+            zip64End.putInt(ZipArchiveReader.ZIP64_END_OF_CENTRAL_DIRECTORY_LOCATOR_SIGNATURE);
+            zip64End.putInt(0);
+            zip64End.putLong(zip64EndOffset);
+            zip64End.putInt(1);
+            zip64End.flip();
+            writeFully(zip64End);
+        }
+
+        ByteBuffer end = allocate(ZipArchiveReader.END_OF_CENTRAL_DIRECTORY_LENGTH);
+        end.putInt(ZipArchiveReader.END_OF_CENTRAL_DIRECTORY_SIGNATURE);
+        end.putShort((short) 0);
+        end.putShort((short) 0);
+        end.putShort((short) Math.min(entryCount, ZipArchiveReader.ZIP64_MAGIC_COUNT));
+        end.putShort((short) Math.min(entryCount, ZipArchiveReader.ZIP64_MAGIC_COUNT));
+        end.putInt((int) Math.min(centralDirectorySize, ZipArchiveReader.ZIP64_MAGIC_VALUE));
+        end.putInt((int) Math.min(centralDirectoryOffset, ZipArchiveReader.ZIP64_MAGIC_VALUE));
+        end.putShort((short) 0);
+        end.flip();
+        writeFully(end);
+        flushOutputBuffer();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try{
+            finish();
+        } finally{
+            if( outputBuffer != null ){
+                if( OUTPUT_BUFFER_POOL.size() < MAXIMUM_POOLED_OUTPUT_BUFFERS ){
+                    OUTPUT_BUFFER_POOL.offer(outputBuffer);
+                }
+                outputBuffer = null;
+            }
+            target.close();
+        }
+    }
+
+    private void writeLocalHeader(ZipArchiveEntry entry) throws IOException {
+        entry.setLocalHeaderOffset(position);
+        boolean isZip64 = entry.getSize() >= ZipArchiveReader.ZIP64_MAGIC_VALUE || entry.getCompressedSize() >= ZipArchiveReader.ZIP64_MAGIC_VALUE;
+        entry.setFlags(entry.getFlags() & ~ZipArchiveEntry.FLAG_DATA_DESCRIPTOR);
+        entry.setVersionNeeded(isZip64 ? VERSION_ZIP64 : VERSION_DEFAULT);
+
+        byte[] nameBytes = entry.getNameBytes();
+        byte[] extra = entry.getExtra();
+        int zip64ExtraLength = isZip64 ? 20 : 0;
+
+        ByteBuffer header = allocate(ZipArchiveReader.LOCAL_HEADER_LENGTH + nameBytes.length + extra.length + zip64ExtraLength);
+        header.putInt(ZipArchiveReader.LOCAL_HEADER_SIGNATURE);
+        header.putShort((short) entry.getVersionNeeded());
+        header.putShort((short) entry.getFlags());
+        header.putShort((short) entry.getMethod());
+        header.putInt((int) entry.getDosTime());
+        header.putInt((int) entry.getCrc());
+        header.putInt((int) (isZip64 ? ZipArchiveReader.ZIP64_MAGIC_VALUE : entry.getCompressedSize()));
+        header.putInt((int) (isZip64 ? ZipArchiveReader.ZIP64_MAGIC_VALUE : entry.getSize()));
+        header.putShort((short) nameBytes.length);
+        header.putShort((short) (extra.length + zip64ExtraLength));
+        header.put(nameBytes);
+        if( isZip64 ){
+            header.putShort((short) ZipArchiveReader.ZIP64_EXTRA_FIELD_ID);
+            header.putShort((short) 16);
+            header.putLong(entry.getSize());
+            header.putLong(entry.getCompressedSize());
+        }
+        header.put(extra);
+        header.flip();
+        writeFully(header);
+    }
+
+    private void writeCentralDirectoryHeader(ZipArchiveEntry entry) throws IOException {
+        boolean sizeTooBig = entry.getSize() >= ZipArchiveReader.ZIP64_MAGIC_VALUE;
+        boolean compressedSizeTooBig = entry.getCompressedSize() >= ZipArchiveReader.ZIP64_MAGIC_VALUE;
+        boolean offsetTooBig = entry.getLocalHeaderOffset() >= ZipArchiveReader.ZIP64_MAGIC_VALUE;
+        int zip64DataLength = (sizeTooBig ? 8 : 0) + (compressedSizeTooBig ? 8 : 0) + (offsetTooBig ? 8 : 0);
+        int zip64ExtraLength = zip64DataLength > 0 ? 4 + zip64DataLength : 0;
+
+        byte[] nameBytes = entry.getNameBytes();
+        byte[] extra = entry.getExtra();
+        byte[] comment = entry.getComment();
+
+        ByteBuffer header = allocate(ZipArchiveReader.CENTRAL_DIRECTORY_HEADER_LENGTH + nameBytes.length + zip64ExtraLength + extra.length + comment.length);
+        header.putInt(ZipArchiveReader.CENTRAL_DIRECTORY_SIGNATURE);
+        header.putShort((short) entry.getVersionMadeBy());
+        header.putShort((short) (zip64DataLength > 0 ? Math.max(VERSION_ZIP64, entry.getVersionNeeded()) : entry.getVersionNeeded()));
+        header.putShort((short) entry.getFlags());
+        header.putShort((short) entry.getMethod());
+        header.putInt((int) entry.getDosTime());
+        header.putInt((int) entry.getCrc());
+        header.putInt((int) (compressedSizeTooBig ? ZipArchiveReader.ZIP64_MAGIC_VALUE : entry.getCompressedSize()));
+        header.putInt((int) (sizeTooBig ? ZipArchiveReader.ZIP64_MAGIC_VALUE : entry.getSize()));
+        header.putShort((short) nameBytes.length);
+        header.putShort((short) (zip64ExtraLength + extra.length));
+        header.putShort((short) comment.length);
+        header.putShort((short) 0);
+        header.putShort((short) entry.getInternalAttributes());
+        header.putInt((int) entry.getExternalAttributes());
+        header.putInt((int) (offsetTooBig ? ZipArchiveReader.ZIP64_MAGIC_VALUE : entry.getLocalHeaderOffset()));
+        header.put(nameBytes);
+        if( zip64DataLength > 0 ){
+            header.putShort((short) ZipArchiveReader.ZIP64_EXTRA_FIELD_ID);
+            header.putShort((short) zip64DataLength);
+            if( sizeTooBig ){
+                header.putLong(entry.getSize());
+            }
+            if( compressedSizeTooBig ){
+                header.putLong(entry.getCompressedSize());
+            }
+            if( offsetTooBig ){
+                header.putLong(entry.getLocalHeaderOffset());
+            }
+        }
+        header.put(extra);
+        header.put(comment);
+        header.flip();
+        writeFully(header);
+    }
+
+    private ByteBuffer allocate(int length) {
+        return ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private void writeFully(ByteBuffer buffer) throws IOException {
+        int length = buffer.remaining();
+        if( length > outputBuffer.remaining() ){
+            flushOutputBuffer();
+        }
+        if( length > outputBuffer.remaining() ){
+            // too big for collecting
+            while( buffer.hasRemaining() ){
+                target.write(buffer);
+            }
+        } else {
+            outputBuffer.put(buffer);
+        }
+        position += length;
+    }
+
+    private void flushOutputBuffer() throws IOException {
+        outputBuffer.flip();
+        while( outputBuffer.hasRemaining() ){
+            target.write(outputBuffer);
+        }
+        outputBuffer.clear();
+    }
+}
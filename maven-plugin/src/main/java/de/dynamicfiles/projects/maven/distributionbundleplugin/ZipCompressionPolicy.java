@@ -0,0 +1,171 @@
+/*
+ * Copyright 2018 Danny Althoff
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.dynamicfiles.projects.maven.distributionbundleplugin;
+
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.PathMatcher;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.Deflater;
+
+/**
+ * Decides per ZIP-entry about being stored or compressed (and using which level), based on glob-patterns. Rules are written like
+ * "*.png=stored", "*.txt=deflated" or "*.xml=deflated:9", patterns without any slash are matched against the filename only, all
+ * other patterns against the whole entry name. The first matching rule wins, the default rules are checked after the configured ones.
+ *
+ * @author Danny Althoff
+ */
+public class ZipCompressionPolicy {
+
+    public static final String STORED = "stored";
+    public static final String DEFLATED = "deflated";
+
+    /**
+     * Files having their own compression, compressing them again takes time without reducing their size.
+     */
+    public static final List<String> DEFAULT_RULES = Collections.unmodifiableList(Arrays.asList(
+            "*.jar=" + STORED,
+            "*.zip=" + STORED,
+            "*.png=" + STORED,
+            "*.jpg=" + STORED,
+            "*.jpeg=" + STORED,
+            "*.gz=" + STORED
+    ));
+
+    private final List<Rule> rules = new ArrayList<>();
+    private final List<String> ruleDefinitions = new ArrayList<>();
+    private final int defaultLevel;
+
+    /**
+     * @param configuredRules rules checked before the default rules, can be null
+     * @param defaultLevel    compression level used for entries not matching any rule, -1 for the default level of the deflater
+     *
+     * @throws IllegalArgumentException when some rule is malformed
+     */
+    public ZipCompressionPolicy(List<String> configuredRules, int defaultLevel) {
+        this.defaultLevel = validateLevel(defaultLevel);
+        FileSystem fileSystem = FileSystems.getDefault();
+        if( configuredRules != null ){
+            configuredRules.forEach(configuredRule -> rules.add(parseRule(fileSystem, configuredRule)));
+            ruleDefinitions.addAll(configuredRules);
+        }
+        DEFAULT_RULES.forEach(defaultRule -> rules.add(parseRule(fileSystem, defaultRule)));
+        ruleDefinitions.addAll(DEFAULT_RULES);
+    }
+
+    /**
+     * @return policy using only the default rules and the default level
+     */
+    public static ZipCompressionPolicy createDefault() {
+        return new ZipCompressionPolicy(null, Deflater.DEFAULT_COMPRESSION);
+    }
+
+    /**
+     * The compression level of some entry is not stored inside the ZIP-file, so this description can be stored next to it for
+     * finding out if entries can be re-used.
+     *
+     * @return description of all rules and the default level, being equal for policies compressing the same way
+     */
+    public String getDescription() {
+        return "level=" + defaultLevel + "\nrules=" + String.join("|||", ruleDefinitions);
+    }
+
+    /**
+     * @param entryName name of the entry, using normal slashes
+     *
+     * @return {@link ZipArchiveEntry#METHOD_STORED} or {@link ZipArchiveEntry#METHOD_DEFLATED}
+     */
+    public int getMethod(String entryName) {
+        Rule rule = findRule(entryName);
+        return rule == null || !rule.stored ? ZipArchiveEntry.METHOD_DEFLATED : ZipArchiveEntry.METHOD_STORED;
+    }
+
+    /**
+     * @param entryName name of the entry, using normal slashes
+     *
+     * @return compression level to use when deflating
+     */
+    public int getLevel(String entryName) {
+        Rule rule = findRule(entryName);
+        return rule == null || rule.stored ? defaultLevel : rule.level;
+    }
+
+    private Rule findRule(String entryName) {
+        String filename = entryName.substring(entryName.lastIndexOf('/') + 1);
+        for( Rule rule : rules ){
+            if( rule.matches(entryName, filename) ){
+                return rule;
+            }
+        }
+        return null;
+    }
+
+    private Rule parseRule(FileSystem fileSystem, String configuredRule) {
+        int separatorIndex = configuredRule == null ? -1 : configuredRule.lastIndexOf('=');
+        if( separatorIndex <= 0 ){
+            throw new IllegalArgumentException("Compression rule has to look like '<glob>=stored' or '<glob>=deflated[:level]', but was: " + configuredRule);
+        }
+        String pattern = configuredRule.substring(0, separatorIndex).trim();
+        String compression = configuredRule.substring(separatorIndex + 1).trim().toLowerCase();
+        PathMatcher pathMatcher = fileSystem.getPathMatcher("glob:" + pattern);
+        boolean matchFilenameOnly = !pattern.contains("/");
+
+        if( STORED.equals(compression) ){
+            return new Rule(pathMatcher, matchFilenameOnly, true, defaultLevel);
+        }
+        if( DEFLATED.equals(compression) ){
+            return new Rule(pathMatcher, matchFilenameOnly, false, defaultLevel);
+        }
+        if( compression.startsWith(DEFLATED + ":") ){
+            try{
+                int level = Integer.parseInt(compression.substring(DEFLATED.length() + 1).trim());
+                return new Rule(pathMatcher, matchFilenameOnly, false, validateLevel(level));
+            } catch(NumberFormatException ex){
+                throw new IllegalArgumentException("Compression level has to be a number, but was: " + configuredRule, ex);
+            }
+        }
+        throw new IllegalArgumentException("Compression has to be 'stored' or 'deflated[:level]', but was: " + configuredRule);
+    }
+
+    private static int validateLevel(int level) {
+        if( level != Deflater.DEFAULT_COMPRESSION && (level < Deflater.NO_COMPRESSION || level > Deflater.BEST_COMPRESSION) ){
+            throw new IllegalArgumentException("Compression level has to be between 0 and 9 (or -1 for default), but was: " + level);
+        }
+        return level;
+    }
+
+    private static class Rule {
+
+        private final PathMatcher pathMatcher;
+        private final boolean matchFilenameOnly;
+        private final boolean stored;
+        private final int level;
+
+        Rule(PathMatcher pathMatcher, boolean matchFilenameOnly, boolean stored, int level) {
+            this.pathMatcher = pathMatcher;
+            this.matchFilenameOnly = matchFilenameOnly;
+            this.stored = stored;
+            this.level = level;
+        }
+
+        boolean matches(String entryName, String filename) {
+            return pathMatcher.matches(FileSystems.getDefault().getPath(matchFilenameOnly ? filename : entryName));
+        }
+    }
+}
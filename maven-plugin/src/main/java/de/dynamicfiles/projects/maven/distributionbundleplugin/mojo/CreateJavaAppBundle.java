@@ -15,35 +15,63 @@
  */
 package de.dynamicfiles.projects.maven.distributionbundleplugin.mojo;
 
+import de.dynamicfiles.projects.maven.distributionbundleplugin.BundleCache;
+import de.dynamicfiles.projects.maven.distributionbundleplugin.BundleFingerprint;
+import de.dynamicfiles.projects.maven.distributionbundleplugin.BundleManifest;
+import de.dynamicfiles.projects.maven.distributionbundleplugin.BundlingMetrics;
+import de.dynamicfiles.projects.maven.distributionbundleplugin.FlightRecorderEvents;
+import de.dynamicfiles.projects.maven.distributionbundleplugin.InProcessJarSigner;
 import de.dynamicfiles.projects.maven.distributionbundleplugin.InternalUtils;
-
+import de.dynamicfiles.projects.maven.distributionbundleplugin.JarFileRewriter;
+import de.dynamicfiles.projects.maven.distributionbundleplugin.JarSignatures;
+import de.dynamicfiles.projects.maven.distributionbundleplugin.LibFolderIndex;
+import de.dynamicfiles.projects.maven.distributionbundleplugin.NestedJarFileScanner;
+import de.dynamicfiles.projects.maven.distributionbundleplugin.SignedJarCache;
+import de.dynamicfiles.projects.maven.distributionbundleplugin.ZipArchivePacker;
+import de.dynamicfiles.projects.maven.distributionbundleplugin.ZipCompressionPolicy;
+
+import java.io.BufferedReader;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 
-import java.net.URI;
-
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.FileSystem;
-import java.nio.file.FileSystems;
 import java.nio.file.FileVisitResult;
 import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
 import java.nio.file.LinkOption;
 import java.nio.file.Path;
 import java.nio.file.PathMatcher;
+import java.nio.file.Paths;
 import java.nio.file.SimpleFileVisitor;
 import java.nio.file.StandardCopyOption;
 import java.nio.file.StandardOpenOption;
 import java.nio.file.attribute.BasicFileAttributes;
 
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.jar.Attributes;
@@ -51,6 +79,8 @@ import java.util.jar.JarFile;
 import java.util.jar.Manifest;
 import java.util.stream.Collectors;
 
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.model.Dependency;
 import org.apache.maven.plugin.AbstractMojo;
 import org.apache.maven.plugin.MojoExecution;
 import org.apache.maven.plugin.MojoExecutionException;
@@ -143,6 +173,34 @@ public class CreateJavaAppBundle extends AbstractMojo {
     @Parameter(defaultValue = "false")
     private boolean copySystemDependencies;
 
+    /**
+     * When running maven without the clean-goal, all dependencies are copied again on every execution. Set this to "true" to only copy new
+     * or changed dependencies. For this an index-file is kept inside the build-folder, which remembers size, last-modified-time and
+     * hash of each copied dependency (re-using the checksum-files of the local repository). Dependencies which were copied by some previous
+     * execution, but are not registered anymore, are getting removed from the lib-folder.
+     */
+    @Parameter(defaultValue = "false")
+    private boolean incrementalDependencyCopy;
+
+    /**
+     * Copying a lot of dependencies one after another might not use all the available bandwidth of the used filesystem (e.g. NVMe or
+     * network filesystems). To copy multiple dependencies at the same time, set this to the amount of wanted copy-threads. The generated
+     * classpath keeps the same order of entries, regardless of the amount of threads.
+     */
+    @Parameter(defaultValue = "1")
+    private int dependencyCopyParallelism;
+
+    /**
+     * Instead of copying all dependencies into the lib-folder, it is possible to just link them, which only costs some metadata-operations
+     * instead of copying all the bytes. Possible values are "copy", "hardlink" and "symlink". When the dependency and the lib-folder are
+     * not on the same filesystem, or creating the link is not possible (e.g. missing permissions on Windows), the dependency gets copied.
+     *
+     * Note: when using "symlink", the lib-folder points to the files inside your local repository, so better use "createPackedBundle"
+     * when you want to distribute the java-app bundle.
+     */
+    @Parameter(defaultValue = "copy")
+    private String dependencyLinkMode;
+
     /**
      * When you need to add additional files to generated app-folder (e.g. README, license, third-party-tools, ...),
      * you can specify the source-folder here. All files will be copied recursively.
@@ -181,7 +239,8 @@ public class CreateJavaAppBundle extends AbstractMojo {
 
     /**
      * If mainClass is defined, this mojo scans for the configured main-class being present in generated jar-file.
-     * Set this to "false" in case the main-class is inside a different location (e.g. inside a nested jar-file).
+     * Set this to "false" in case the main-class is inside a different location (e.g. inside a nested jar-file), or set
+     * "scanForMainClassInsideNestedJarFiles" to "true".
      */
     @Parameter(defaultValue = "true")
     private boolean scanForMainClass;
@@ -194,6 +253,27 @@ public class CreateJavaAppBundle extends AbstractMojo {
     @Parameter(defaultValue = "")
     private String scanForMainClassWithLocationPrefix;
 
+    /**
+     * When scanForMainClass is set to "true", these classes are required to be present in generated jar-file too (e.g.
+     * secondary main-classes or java-agent classes). They are using the same location-prefix as the main-class.
+     */
+    @Parameter
+    private List<String> scanForAdditionalClasses;
+
+    /**
+     * When the main-class (or some of the additional classes) could not be found in generated jar-file, jar-files nested
+     * inside of it are scanned too (e.g. "BOOT-INF/lib/*.jar" when using spring boot). Nested jar-files are not extracted.
+     */
+    @Parameter(defaultValue = "false")
+    private boolean scanForMainClassInsideNestedJarFiles;
+
+    /**
+     * Only nested jar-files with this location-prefix are scanned (e.g. "BOOT-INF/lib/"). Leave this empty to scan all
+     * nested jar-files.
+     */
+    @Parameter(defaultValue = "")
+    private String scanForMainClassNestedJarFilesPrefix;
+
     /**
      * To sign the jar-files inside your distribution bundle, set this to "true" and see "signParameters" for further details.
      */
@@ -259,6 +339,59 @@ public class CreateJavaAppBundle extends AbstractMojo {
     @Parameter(defaultValue = "*.jar")
     private String signJarsLibFilter;
 
+    /**
+     * Signing lots of jar-files one after another takes some time, mostly for starting each jarsigner process. To run multiple
+     * jarsigner processes at the same time, set this to the amount of wanted processes. When using more than one process, the
+     * output of each process gets written to the build-log after that process finished, and jarsigner can not ask for passwords.
+     */
+    @Parameter(defaultValue = "1")
+    private int signingParallelism;
+
+    /**
+     * Signing is done by calling the jarsigner-executable for each jar-file (being "jarsigner"). When using JDK 9 or newer, setting
+     * this to "in-process" signs all jar-files inside the running JVM, loading the keystore only once. The same "signParameters"
+     * are used, but only parameters for file-based keystores are supported, so hardware tokens (e.g. PKCS11) still require
+     * "jarsigner". The "signingParallelism" sets the amount of threads used for signing.
+     */
+    @Parameter(defaultValue = "jarsigner")
+    private String signingEngine;
+
+    /**
+     * Third-party jar-files are the same on every build, so signing them again can be avoided by using a local cache of signed
+     * jar-files. Each cached file is identified by the hash of the unsigned jar-file, the fingerprint of the signer certificate and the
+     * used algorithms. This requires the keystore being readable from the "signParameters" (same as for "in-process" signing).
+     */
+    @Parameter(defaultValue = "false")
+    private boolean signedJarCache;
+
+    /**
+     * Location of the signed jar-file cache, can be shared between projects.
+     */
+    @Parameter(defaultValue = "${user.home}/.distbundle/signed-jar-cache")
+    private File signedJarCacheFolder;
+
+    /**
+     * Maximum size of the signed jar-file cache in megabytes. When getting bigger, the least recently used entries are removed.
+     */
+    @Parameter(defaultValue = "1024")
+    private long signedJarCacheMaxSize;
+
+    /**
+     * Some dependencies are already signed by their vendor. Possible values are "resign" (adds your signature next to the existing
+     * one), "skip" (keeps these jar-files as they are) and "strip-and-sign" (removes the existing signature before signing).
+     */
+    @Parameter(defaultValue = "resign")
+    private String alreadySignedJarsPolicy;
+
+    /**
+     * Set to "true" to write some inventory of all files of the bundle into the output folder (named "bundle-manifest"), useful for
+     * checking the integrity of some installed application or for updating it. Each line contains the SHA-256 checksum, the size and
+     * the relative path of one file. Checksums are calculated while copying the files, only files not copied by this execution (e.g.
+     * skipped by "incrementalDependencyCopy", linked by "dependencyLinkMode" or changed by signing) are read again.
+     */
+    @Parameter(defaultValue = "false")
+    private boolean createBundleManifest;
+
     /**
      * To create some easy to share distribution bundle, set this to "true" to get the generated executable java application bundle getting packed
      * into some ZIP-file inside the configured build-folder (normally inside the "target"-folder).
@@ -266,6 +399,78 @@ public class CreateJavaAppBundle extends AbstractMojo {
     @Parameter(defaultValue = "false")
     private boolean createPackedBundle;
 
+    /**
+     * Packing some big bundle is limited by the speed of compressing all files on one thread. To compress on multiple threads, set this
+     * to the amount of wanted threads. Files bigger than 1 MiB are split into multiple chunks, so even one big file is compressed on
+     * multiple threads. The resulting ZIP-file is the same, regardless of the amount of threads.
+     */
+    @Parameter(defaultValue = "1")
+    private int packingParallelism;
+
+    /**
+     * Files inside the packed bundle are compressed using this level (0 to 9), unless some compression rule matches.
+     */
+    @Parameter(defaultValue = "6")
+    private int packingCompressionLevel;
+
+    /**
+     * Compressing files which already are compressed (like jar-files or images) takes time without reducing their size. These rules
+     * decide which files are stored without compression, or which compression level is used. Each rule is some glob pattern followed by
+     * "=stored", "=deflated" or "=deflated:LEVEL", patterns without any slash are matched against the filename only. The first matching
+     * rule wins, these rules are checked before the default rules (storing "*.jar", "*.zip", "*.png", "*.jpg", "*.jpeg" and "*.gz").
+     * <code>
+     * &lt;packingCompressionRules&gt;
+     *     &lt;rule&gt;*.bin=stored&lt;/rule&gt;
+     *     &lt;rule&gt;*.xml=deflated:9&lt;/rule&gt;
+     *     &lt;rule&gt;legacy/*.jar=deflated&lt;/rule&gt;
+     * &lt;/packingCompressionRules&gt;
+     * </code>
+     */
+    @Parameter
+    private List<String> packingCompressionRules;
+
+    /**
+     * When running maven without the clean-goal, the packed bundle gets created from scratch on every execution. Set this to "true" to
+     * re-use all unchanged entries (same name, size, last-modified-time and checksum) of the previously packed bundle, copying them
+     * without compressing them again. Only changed or new files are getting compressed. Changing the compression level or rules
+     * compresses all files again once. As dependencies are copied again on every
+     * execution (getting a new last-modified-time), this works best together with "incrementalDependencyCopy".
+     */
+    @Parameter(defaultValue = "false")
+    private boolean incrementalPacking;
+
+    /**
+     * Building the same project again (e.g. when running "mvn clean verify" on some CI-server) creates the same bundle again. Set this
+     * to "true" to store every created bundle (output folder and packed bundle) inside a local cache, identified by the fingerprint of
+     * all inputs: the project artifact, all dependencies, all additional application resources and the configuration of this mojo.
+     * When having the same fingerprint again, the bundle gets restored from that cache. When the output of the previous execution is
+     * still present, unmodified and has the same fingerprint, all bundling is skipped. Bundles are only stored when the output folder
+     * was empty before bundling (or "cleanupOutputFolder" is enabled), so no leftovers of previous executions are cached. Using
+     * "symlink" as "dependencyLinkMode" or having the "outputLibFolder" outside of the "outputFolder" is not supported by this cache.
+     */
+    @Parameter(defaultValue = "false")
+    private boolean bundleCache;
+
+    /**
+     * Location of the bundle cache, can be shared between projects.
+     */
+    @Parameter(defaultValue = "${user.home}/.distbundle/bundle-cache")
+    private File bundleCacheFolder;
+
+    /**
+     * Maximum size of the bundle cache in megabytes. When getting bigger, the least recently used entries are removed.
+     */
+    @Parameter(defaultValue = "2048")
+    private long bundleCacheMaxSize;
+
+    /**
+     * Having this set (using the same format as the maven-jar-plugin, being ISO-8601 like "2018-01-01T00:00:00Z" or seconds since
+     * epoch), the created bundle is reproducible: all entries of the packed bundle are sorted by their name, are using this timestamp
+     * as last-modified time and are having normalized permissions, so building the same inputs again results in the same bytes.
+     */
+    @Parameter(defaultValue = "${project.build.outputTimestamp}")
+    private String outputTimestamp;
+
     /**
      * When some packed bundle was created, you can attach that file to the project artifacts, making it more easy to upload
      * your application to some repository.
@@ -279,6 +484,14 @@ public class CreateJavaAppBundle extends AbstractMojo {
     @Parameter(defaultValue = "java-app-bundle")
     private String targetClassifier;
 
+    /**
+     * Set to "true" to create checksum-files (".sha256" and ".sha512") next to the packed bundle, these are attached to the project
+     * artifacts too (when "attachAsArtifact" is set). The checksums are calculated while packing, so the packed bundle does not have
+     * to be read again.
+     */
+    @Parameter(defaultValue = "false")
+    private boolean createPackedBundleChecksums;
+
     /**
      * To keep track on every created java-app bundle, this temporary file is created. This is a workaround for
      * not knowing how I can share that information across multiple executions within maven. Pull-Requests are
@@ -289,6 +502,29 @@ public class CreateJavaAppBundle extends AbstractMojo {
 
     private final InternalUtils internalUtils = new InternalUtils();
 
+    private final BundlingMetrics bundlingMetrics = new BundlingMetrics("java-app");
+
+    private long reproducibleTimeMillis = -1;
+
+    private BundleManifest bundleManifest = null;
+
+    private static final String DEPENDENCY_LINK_MODE_COPY = "copy";
+    private static final String DEPENDENCY_LINK_MODE_HARDLINK = "hardlink";
+    private static final String DEPENDENCY_LINK_MODE_SYMLINK = "symlink";
+
+    private static final String SIGNING_ENGINE_JARSIGNER = "jarsigner";
+    private static final String SIGNING_ENGINE_IN_PROCESS = "in-process";
+
+    private static final String ALREADY_SIGNED_JARS_POLICY_SKIP = "skip";
+    private static final String ALREADY_SIGNED_JARS_POLICY_RESIGN = "resign";
+    private static final String ALREADY_SIGNED_JARS_POLICY_STRIP_AND_SIGN = "strip-and-sign";
+
+    private static final String BUNDLE_FINGERPRINT_KEY = "bundleFingerprint";
+    private static final String OUTPUT_FINGERPRINT_KEY = "outputFingerprint";
+
+    private static final String[] CHECKSUM_ALGORITHMS = {"SHA-256", "SHA-512"};
+    private static final String[] CHECKSUM_EXTENSIONS = {"sha256", "sha512"};
+
     @Override
     public void execute() throws MojoExecutionException, MojoFailureException {
         if( !"jar".equalsIgnoreCase(project.getPackaging()) ){
@@ -299,105 +535,589 @@ public class CreateJavaAppBundle extends AbstractMojo {
         Properties settingsForThisRun = new Properties();
 
         // method-calls to each part of bundling
+        // each part is recorded as its own phase inside the metrics
         try{
-            prepareTargetArea();
+            reproducibleTimeMillis = parseOutputTimestamp();
+            bundlingMetrics.startPhase("findArtifactToWorkOn");
             AtomicReference<File> sourceToCopy = findArtifactToWorkOn();
-            Path targetAppArtifact = copyArtifactToWorkOn(sourceToCopy);
-            maintainMainClassInManifest(settingsForThisRun, targetAppArtifact);
+            bundlingMetrics.startPhase("createBundleFingerprint");
+            BundleCache usedBundleCache = createBundleCache();
+            String bundleFingerprint = createBundleFingerprint(usedBundleCache, sourceToCopy.get().toPath());
+            if( bundleFingerprint != null ){
+                bundlingMetrics.startPhase("restoreBundleFromCache");
+                if( isBundleUpToDate(bundleFingerprint, settingsForThisRun) || restoreBundleFromCache(usedBundleCache, bundleFingerprint, settingsForThisRun) ){
+                    bundlingMetrics.startPhase("attachPackedBundleToProject");
+                    if( createPackedBundle ){
+                        checkTargetClassifier();
+                        writeMissingChecksumFiles(getPackedBundleFile());
+                        attachPackedBundleToProject(getPackedBundleFile());
+                    }
+                    bundlingMetrics.startPhase("writeMojoExecutionConfigurationLog");
+                    writeMojoExecutionConfigurationLog(settingsForThisRun);
+                    bundlingMetrics.endPhase();
+                    writeMetricsReport();
+                    return;
+                }
+            }
+            // leftovers of previous executions would end up inside the cache
+            boolean storeInBundleCache = bundleFingerprint != null && (cleanupOutputFolder || isFolderEmpty(outputFolder));
+            bundlingMetrics.startPhase("prepareTargetArea");
+            prepareTargetArea();
+            if( createBundleManifest ){
+                bundleManifest = new BundleManifest(outputFolder.toPath());
+            }
+            bundlingMetrics.startPhase("maintainMainClassInManifest");
+            Manifest manifest = maintainMainClassInManifest(settingsForThisRun, sourceToCopy.get().toPath());
+            bundlingMetrics.startPhase("copyDependenciesToLibFolder");
             Set<String> copiedDependencies = copyDependenciesToLibFolder();
+            bundlingMetrics.startPhase("copyAdditionalApplicationResources");
             copyAdditionalApplicationResources();
-            adjustClasspathInsideJarFile(copiedDependencies, settingsForThisRun, targetAppArtifact);
+            bundlingMetrics.startPhase("adjustClasspathInsideManifest");
+            adjustClasspathInsideManifest(copiedDependencies, settingsForThisRun, manifest);
+            bundlingMetrics.startPhase("copyArtifactToWorkOn");
+            Path targetAppArtifact = copyArtifactToWorkOn(sourceToCopy, manifest);
+            bundlingMetrics.startPhase("scanForMainClassInsideJarFile");
             scanForMainClassInsideJarFile(targetAppArtifact);
+            bundlingMetrics.startPhase("signJarFiles");
             signJarFiles(targetAppArtifact);
+            bundlingMetrics.startPhase("writeBundleManifest");
+            writeBundleManifest();
+            bundlingMetrics.startPhase("createPackedBundleAndAttachToProject");
             createPackedBundleAndAttachToProject();
+            if( bundleFingerprint != null ){
+                bundlingMetrics.startPhase("storeBundleInCache");
+                storeBundleInCache(usedBundleCache, bundleFingerprint, storeInBundleCache, settingsForThisRun);
+            }
+            bundlingMetrics.startPhase("writeMojoExecutionConfigurationLog");
             writeMojoExecutionConfigurationLog(settingsForThisRun);
+            bundlingMetrics.endPhase();
+            writeMetricsReport();
         } catch(MojoExecutionException | MojoFailureException ex){
+            // record the failed phase too
+            bundlingMetrics.endPhase();
             // try to write execution configuration log, even when other parts did fail
             // this makes sure that file was created for bug-reporting
             writeMojoExecutionConfigurationLog(settingsForThisRun);
+            writeMetricsReport();
             throw ex;
         }
     }
 
-    private Path copyArtifactToWorkOn(AtomicReference<File> sourceToCopy) throws MojoExecutionException {
+    private Path copyArtifactToWorkOn(AtomicReference<File> sourceToCopy, Manifest manifest) throws MojoExecutionException {
         String artifactFileName = sourceToCopy.get().getName();
         if( verbose ){
             getLog().info("Copying source artifact...");
             getLog().info("Using source filename: " + artifactFileName);
         }
         Path targetAppArtifact = outputFolder.toPath().resolve(artifactFileName);
+        boolean hasCustomMainClass = mainClass != null && !mainClass.trim().isEmpty();
         try{
-            Files.copy(sourceToCopy.get().toPath(), targetAppArtifact, StandardCopyOption.REPLACE_EXISTING);
+            FlightRecorderEvents.TimedEvent fileCopyEvent = FlightRecorderEvents.begin(FlightRecorderEvents.FILE_COPY);
+            if( hasCustomMainClass || generateClasspath ){
+                if( verbose ){
+                    getLog().info("Writing manifest of JAR file while copying...");
+                }
+                // read source only once, all entries except the manifest are copied without being decompressed
+                List<MessageDigest> outputDigests = new ArrayList<>();
+                if( bundleManifest != null ){
+                    outputDigests.add(BundleManifest.createDigest());
+                }
+                if( reproducibleTimeMillis != -1 ){
+                    JarFileRewriter.rewriteReproducible(sourceToCopy.get().toPath(), targetAppArtifact, manifest, reproducibleTimeMillis, outputDigests);
+                } else {
+                    JarFileRewriter.rewrite(sourceToCopy.get().toPath(), targetAppArtifact, manifest, outputDigests);
+                }
+                if( bundleManifest != null ){
+                    bundleManifest.record(targetAppArtifact, outputDigests.get(0));
+                }
+            } else if( bundleManifest != null ){
+                bundleManifest.copy(sourceToCopy.get().toPath(), targetAppArtifact);
+            } else {
+                Files.copy(sourceToCopy.get().toPath(), targetAppArtifact, StandardCopyOption.REPLACE_EXISTING);
+            }
+            long sourceSize = Files.size(sourceToCopy.get().toPath());
+            fileCopyEvent.commit(sourceToCopy.get().getAbsolutePath(), targetAppArtifact.toAbsolutePath().toString(), sourceSize);
+            bundlingMetrics.addFileRead(sourceSize);
+            bundlingMetrics.addFileWritten(Files.size(targetAppArtifact));
         } catch(IOException ex){
             throw new MojoExecutionException(null, ex);
         }
         return targetAppArtifact;
     }
 
+    private void writeBundleManifest() throws MojoExecutionException {
+        if( bundleManifest == null ){
+            return;
+        }
+        if( verbose ){
+            getLog().info("Writing bundle manifest...");
+        }
+        try{
+            int filesRead = bundleManifest.write();
+            if( verbose && filesRead > 0 ){
+                getLog().info(String.format("Calculated checksums of %s files not copied by this execution.", filesRead));
+            }
+            bundlingMetrics.addFileWritten(outputFolder.toPath().resolve(BundleManifest.FILENAME).toFile().length());
+        } catch(IOException ex){
+            throw new MojoExecutionException("Could not write bundle manifest.", ex);
+        }
+    }
+
     private void createPackedBundleAndAttachToProject() throws MojoExecutionException, MojoFailureException {
         if( createPackedBundle ){
             if( verbose ){
                 getLog().info("Creating packed bundle (ZIP-file)...");
             }
             // check if for given classifier was already created in a previous execution, prior of packing it (reduces time to failure)
+            checkTargetClassifier();
 
-            // prepare java-app bundle executions tracking file
-            if( !mojoExecutionTrackingFile.exists() ){
+            ZipCompressionPolicy compressionPolicy;
+            try{
+                compressionPolicy = new ZipCompressionPolicy(packingCompressionRules, packingCompressionLevel);
+            } catch(IllegalArgumentException ex){
+                throw new MojoExecutionException("Invalid packing compression configuration: " + ex.getMessage(), ex);
+            }
+
+            // add to project artifacts, zipped
+            File targetZippedArtifact = getPackedBundleFile();
+            File previousZippedArtifact = new File(targetZippedArtifact.getParentFile(), targetZippedArtifact.getName() + ".previous");
+            // the compression level of each entry is not part of the ZIP-file, so entries are only re-used when using the same policy
+            File packingPolicyFile = getPackingPolicyFile(targetZippedArtifact);
+            boolean reusePreviousEntries = incrementalPacking && isSamePackingPolicy(packingPolicyFile, compressionPolicy);
+            if( verbose && incrementalPacking && !reusePreviousEntries && targetZippedArtifact.exists() ){
+                getLog().info("Packing compression has changed (or is unknown), no entries of the previous packed bundle are re-used.");
+            }
+            try{
+                Files.deleteIfExists(packingPolicyFile.toPath());
+            } catch(IOException ex){
+                throw new MojoExecutionException("Could not remove packing policy file: " + packingPolicyFile.getAbsolutePath(), ex);
+            }
+            if( targetZippedArtifact.exists() ){
+                if( reusePreviousEntries ){
+                    // keep old file for re-using its entries
+                    try{
+                        Files.move(targetZippedArtifact.toPath(), previousZippedArtifact.toPath(), StandardCopyOption.REPLACE_EXISTING);
+                    } catch(IOException ex){
+                        throw new MojoExecutionException("Could not keep previous packed bundle for incremental packing.", ex);
+                    }
+                } else {
+                    // always remove old file
+                    targetZippedArtifact.delete();
+                }
+            }
+            try{
+                if( verbose && packingParallelism > 1 ){
+                    getLog().info(String.format("Compressing files using %s parallel threads...", packingParallelism));
+                }
+                ZipArchivePacker zipArchivePacker = new ZipArchivePacker(packingParallelism, compressionPolicy, reproducibleTimeMillis);
+                List<MessageDigest> checksumDigests = createChecksumDigests();
                 try{
-                    mojoExecutionTrackingFile.createNewFile();
-                    // when maven ends, the JVM ends too (despite of the way how gradle is working)
-                    // the created file is only relevant for each run, so delete it after JVM died
-                    mojoExecutionTrackingFile.deleteOnExit();
-                } catch(IOException ex){
-                    // NO-OP if everything went okay until this point, is it really worth to fail the build for this?!?
+                    zipArchivePacker.pack(outputFolder.toPath(), targetZippedArtifact.toPath(), reusePreviousEntries ? previousZippedArtifact.toPath() : null, checksumDigests);
+                    writeChecksumFiles(targetZippedArtifact, checksumDigests);
+                    if( incrementalPacking ){
+                        Files.write(packingPolicyFile.toPath(), compressionPolicy.getDescription().getBytes(StandardCharsets.UTF_8));
+                    }
+                } finally{
+                    Files.deleteIfExists(previousZippedArtifact.toPath());
+                }
+                if( verbose && incrementalPacking ){
+                    getLog().info(String.format("Re-used %s unchanged entries of previous packed bundle, compressed %s entries.", zipArchivePacker.getReusedEntries(), zipArchivePacker.getCompressedEntries()));
                 }
+                recordFilesRead(outputFolder.toPath());
+                bundlingMetrics.addFileWritten(targetZippedArtifact.length());
+            } catch(IOException ex){
+                throw new MojoExecutionException("Could not create packed bundle, please check your build log.", ex);
             }
+            attachPackedBundleToProject(targetZippedArtifact);
+        }
+    }
 
-            if( targetClassifier == null || targetClassifier.trim().isEmpty() ){
-                getLog().warn("Provided target bundle artifact classifier was invalid, using default one...");
-                // fix this wrong configuration (do not fail, as we already got this far)
-                targetClassifier = "java-app-bundle";
-            }
+    private File getPackingPolicyFile(File targetZippedArtifact) {
+        return new File(targetZippedArtifact.getParentFile(), targetZippedArtifact.getName() + ".packing-policy");
+    }
 
-            // check if java-app bundle executions tracking file contains this target classifier
+    private boolean isSamePackingPolicy(File packingPolicyFile, ZipCompressionPolicy compressionPolicy) {
+        if( !packingPolicyFile.isFile() ){
+            return false;
+        }
+        try{
+            return compressionPolicy.getDescription().equals(new String(Files.readAllBytes(packingPolicyFile.toPath()), StandardCharsets.UTF_8));
+        } catch(IOException ex){
+            return false;
+        }
+    }
+
+    private void checkTargetClassifier() throws MojoFailureException {
+        // prepare java-app bundle executions tracking file
+        if( !mojoExecutionTrackingFile.exists() ){
             try{
-                List<String> allPreviousExecutions = Files.readAllLines(mojoExecutionTrackingFile.toPath());
-                Set<String> uniquePreviousExecutions = allPreviousExecutions
-                        .stream()
-                        .map(classifier -> classifier.trim())
-                        .map(classifier -> classifier.replaceAll("(\r\n)|(\r)|(\n)", ""))
-                        .collect(Collectors.toSet());
-                if( uniquePreviousExecutions.contains(targetClassifier) ){
-                    throw new MojoFailureException(String.format("Artifact for classifier '%s' was already attached to project. Please review your plugin-configuration.", targetClassifier));
-                }
-                // add to list and write to file
-                uniquePreviousExecutions.add(targetClassifier);
-                Files.write(mojoExecutionTrackingFile.toPath(), uniquePreviousExecutions, StandardOpenOption.APPEND);
+                mojoExecutionTrackingFile.createNewFile();
+                // when maven ends, the JVM ends too (despite of the way how gradle is working)
+                // the created file is only relevant for each run, so delete it after JVM died
+                mojoExecutionTrackingFile.deleteOnExit();
             } catch(IOException ex){
-                throw new MojoFailureException(null, ex);
-            } catch(MojoFailureException ex){
-                throw ex;
+                // NO-OP if everything went okay until this point, is it really worth to fail the build for this?!?
+            }
+        }
+
+        normalizeTargetClassifier();
+
+        // check if java-app bundle executions tracking file contains this target classifier
+        try{
+            List<String> allPreviousExecutions = Files.readAllLines(mojoExecutionTrackingFile.toPath());
+            Set<String> uniquePreviousExecutions = allPreviousExecutions
+                    .stream()
+                    .map(classifier -> classifier.trim())
+                    .map(classifier -> classifier.replaceAll("(\r\n)|(\r)|(\n)", ""))
+                    .collect(Collectors.toSet());
+            if( uniquePreviousExecutions.contains(targetClassifier) ){
+                throw new MojoFailureException(String.format("Artifact for classifier '%s' was already attached to project. Please review your plugin-configuration.", targetClassifier));
             }
+            // add to list and write to file
+            uniquePreviousExecutions.add(targetClassifier);
+            Files.write(mojoExecutionTrackingFile.toPath(), uniquePreviousExecutions, StandardOpenOption.APPEND);
+        } catch(IOException ex){
+            throw new MojoFailureException(null, ex);
+        } catch(MojoFailureException ex){
+            throw ex;
+        }
+    }
 
-            // add to project artifacts, zipped
-            File targetZippedArtifact = new File(project.getBuild().getDirectory(), project.getBuild().getFinalName() + "-" + targetClassifier + ".zip");
-            if( targetZippedArtifact.exists() ){
-                // always remove old file
-                targetZippedArtifact.delete();
+    private void normalizeTargetClassifier() {
+        if( targetClassifier == null || targetClassifier.trim().isEmpty() ){
+            getLog().warn("Provided target bundle artifact classifier was invalid, using default one...");
+            // fix this wrong configuration (do not fail, as we already got this far)
+            targetClassifier = "java-app-bundle";
+        }
+    }
+
+    private File getPackedBundleFile() {
+        normalizeTargetClassifier();
+        return new File(project.getBuild().getDirectory(), project.getBuild().getFinalName() + "-" + targetClassifier + ".zip");
+    }
+
+    private void attachPackedBundleToProject(File targetZippedArtifact) {
+        if( attachAsArtifact ){
+            if( verbose ){
+                getLog().info("Attaching packed bundle to project artifacts using classifier '" + targetClassifier + "' ...");
             }
+            projectHelper.attachArtifact(project, "zip", targetClassifier, targetZippedArtifact);
+            if( createPackedBundleChecksums ){
+                for( String checksumExtension : CHECKSUM_EXTENSIONS ){
+                    projectHelper.attachArtifact(project, "zip." + checksumExtension, targetClassifier, getChecksumFile(targetZippedArtifact, checksumExtension));
+                }
+            }
+        }
+    }
+
+    private List<MessageDigest> createChecksumDigests() throws MojoExecutionException {
+        List<MessageDigest> checksumDigests = new ArrayList<>();
+        if( createPackedBundleChecksums ){
             try{
-                internalUtils.pack(outputFolder.toPath(), targetZippedArtifact.toPath());
+                for( String checksumAlgorithm : CHECKSUM_ALGORITHMS ){
+                    checksumDigests.add(MessageDigest.getInstance(checksumAlgorithm));
+                }
+            } catch(NoSuchAlgorithmException ex){
+                // every JRE has to provide these
+                throw new MojoExecutionException("Could not create checksums of packed bundle.", ex);
+            }
+        }
+        return checksumDigests;
+    }
 
-                if( attachAsArtifact ){
-                    if( verbose ){
-                        getLog().info("Attaching packed bundle to project artifacts using classifier '" + targetClassifier + "' ...");
+    private void writeChecksumFiles(File targetZippedArtifact, List<MessageDigest> checksumDigests) throws IOException {
+        for( int checksumIndex = 0; checksumIndex < checksumDigests.size(); checksumIndex++ ){
+            StringBuilder checksumAsHex = new StringBuilder();
+            for( byte digestByte : checksumDigests.get(checksumIndex).digest() ){
+                checksumAsHex.append(String.format("%02x", digestByte));
+            }
+            // same format as maven uses for its checksum-files: just the checksum
+            Path checksumFile = getChecksumFile(targetZippedArtifact, CHECKSUM_EXTENSIONS[checksumIndex]).toPath();
+            Files.write(checksumFile, checksumAsHex.toString().getBytes(StandardCharsets.US_ASCII));
+            bundlingMetrics.addFileWritten(Files.size(checksumFile));
+        }
+    }
+
+    private void writeMissingChecksumFiles(File targetZippedArtifact) throws MojoExecutionException {
+        if( !createPackedBundleChecksums ){
+            return;
+        }
+        boolean checksumFilesExisting = true;
+        for( String checksumExtension : CHECKSUM_EXTENSIONS ){
+            checksumFilesExisting &= getChecksumFile(targetZippedArtifact, checksumExtension).isFile();
+        }
+        if( checksumFilesExisting ){
+            return;
+        }
+        if( verbose ){
+            getLog().info("Creating checksums of packed bundle...");
+        }
+        // not packed by this execution, so the packed bundle has to be read once
+        List<MessageDigest> checksumDigests = createChecksumDigests();
+        try(InputStream packedBundleInputStream = Files.newInputStream(targetZippedArtifact.toPath())){
+            byte[] buffer = new byte[64 * 1024];
+            int read;
+            while( (read = packedBundleInputStream.read(buffer)) != -1 ){
+                for( MessageDigest checksumDigest : checksumDigests ){
+                    checksumDigest.update(buffer, 0, read);
+                }
+            }
+            bundlingMetrics.addFileRead(targetZippedArtifact.length());
+            writeChecksumFiles(targetZippedArtifact, checksumDigests);
+        } catch(IOException ex){
+            throw new MojoExecutionException("Could not create checksums of packed bundle.", ex);
+        }
+    }
+
+    private File getChecksumFile(File targetZippedArtifact, String checksumExtension) {
+        return new File(targetZippedArtifact.getParentFile(), targetZippedArtifact.getName() + "." + checksumExtension);
+    }
+
+    private BundleCache createBundleCache() {
+        if( !bundleCache ){
+            return null;
+        }
+        if( DEPENDENCY_LINK_MODE_SYMLINK.equalsIgnoreCase(String.valueOf(dependencyLinkMode).trim()) ){
+            getLog().warn("Using 'symlink' as 'dependencyLinkMode' is not supported by the bundle cache, bundle cache is not used.");
+            return null;
+        }
+        if( copyDependencies && !outputLibFolder.toPath().toAbsolutePath().normalize().startsWith(outputFolder.toPath().toAbsolutePath().normalize()) ){
+            getLog().warn("Having the 'outputLibFolder' outside of the 'outputFolder' is not supported by the bundle cache, bundle cache is not used.");
+            return null;
+        }
+        try{
+            return new BundleCache(bundleCacheFolder.toPath(), Math.max(0, bundleCacheMaxSize) * 1024L * 1024L);
+        } catch(IOException ex){
+            getLog().warn("Could not create bundle cache folder, bundle cache is not used. " + ex.getMessage());
+            return null;
+        }
+    }
+
+    private String createBundleFingerprint(BundleCache usedBundleCache, Path sourceAppArtifact) {
+        if( usedBundleCache == null ){
+            return null;
+        }
+        if( verbose ){
+            getLog().info("Creating fingerprint of all bundle inputs...");
+        }
+        try{
+            BundleFingerprint bundleFingerprint = new BundleFingerprint();
+            bundleFingerprint.addValue("pluginVersion", mojoExecution.getPlugin().getVersion());
+            // snapshot versions of this plugin might change without changing the version
+            Artifact pluginArtifact = mojoExecution.getMojoDescriptor().getPluginDescriptor().getPluginArtifact();
+            if( pluginArtifact != null && pluginArtifact.isSnapshot() && pluginArtifact.getFile() != null && pluginArtifact.getFile().isFile() ){
+                bundleFingerprint.addFile("pluginArtifact", pluginArtifact.getFile().toPath());
+            }
+            bundleFingerprint.addFile("sourceAppArtifact", sourceAppArtifact);
+            // the bundled jar-file is named after the source artifact, renaming it has to create a new bundle
+            bundleFingerprint.addValue("sourceAppArtifactName", sourceAppArtifact.getFileName().toString());
+
+            // only settings changing the created bundle are relevant, absolute paths are not
+            bundleFingerprint.addValue("mainClass", mainClass);
+            bundleFingerprint.addValue("cleanupOutputFolder", String.valueOf(cleanupOutputFolder));
+            bundleFingerprint.addValue("copyDependencies", String.valueOf(copyDependencies));
+            bundleFingerprint.addValue("outputLibFolder", outputFolder.toPath().toAbsolutePath().normalize().relativize(outputLibFolder.toPath().toAbsolutePath().normalize()).toString().replace("\\", "/"));
+            bundleFingerprint.addValue("copySystemDependencies", String.valueOf(copySystemDependencies));
+            bundleFingerprint.addValue("generateClasspath", String.valueOf(generateClasspath));
+            bundleFingerprint.addValue("generateClasspathUsingLibFolder", String.valueOf(generateClasspathUsingLibFolder));
+            bundleFingerprint.addValue("generateClasspathUsingLibFolderFileFilter", generateClasspathUsingLibFolderFileFilter);
+            bundleFingerprint.addValue("scanForMainClass", String.valueOf(scanForMainClass));
+            bundleFingerprint.addValue("scanForMainClassWithLocationPrefix", scanForMainClassWithLocationPrefix);
+            bundleFingerprint.addValue("scanForAdditionalClasses", scanForAdditionalClasses == null ? null : String.join("|||", scanForAdditionalClasses));
+            bundleFingerprint.addValue("scanForMainClassInsideNestedJarFiles", String.valueOf(scanForMainClassInsideNestedJarFiles));
+            bundleFingerprint.addValue("scanForMainClassNestedJarFilesPrefix", scanForMainClassNestedJarFilesPrefix);
+            bundleFingerprint.addValue("signJars", String.valueOf(signJars));
+            bundleFingerprint.addValue("signJarsLibFilter", signJarsLibFilter);
+            bundleFingerprint.addValue("signingEngine", signingEngine);
+            bundleFingerprint.addValue("alreadySignedJarsPolicy", alreadySignedJarsPolicy);
+            bundleFingerprint.addValue("createBundleManifest", String.valueOf(createBundleManifest));
+            bundleFingerprint.addValue("createPackedBundle", String.valueOf(createPackedBundle));
+            bundleFingerprint.addValue("packingCompressionLevel", String.valueOf(packingCompressionLevel));
+            bundleFingerprint.addValue("outputTimestamp", String.valueOf(reproducibleTimeMillis));
+            bundleFingerprint.addValue("packingCompressionRules", packingCompressionRules == null ? null : String.join("|||", packingCompressionRules));
+            if( signJars && signParameters != null ){
+                Path basedir = project.getBasedir().toPath().toAbsolutePath().normalize();
+                bundleFingerprint.addValue("signParameters", signParameters.stream()
+                        .map(signParameter -> relativizeToBasedir(basedir, signParameter))
+                        .collect(Collectors.joining("|||")));
+                // the keystore might change without changing the parameters
+                for( String signParameter : signParameters ){
+                    Path possibleFile = project.getBasedir().toPath().resolve(signParameter);
+                    if( Files.isRegularFile(possibleFile) ){
+                        bundleFingerprint.addFile("signParameterFile", possibleFile);
                     }
-                    projectHelper.attachArtifact(project, "zip", targetClassifier, targetZippedArtifact);
                 }
+            }
+
+            if( copyDependencies ){
+                if( copySystemDependencies ){
+                    for( Dependency dependency : project.getDependencies() ){
+                        if( "system".equalsIgnoreCase(dependency.getScope()) ){
+                            File dependencyFile = new File(dependency.getSystemPath());
+                            bundleFingerprint.addFile(dependencyFile.getName(), dependencyFile.toPath());
+                        }
+                    }
+                }
+                for( Artifact dependencyArtifact : project.getArtifacts() ){
+                    File dependencyFile = dependencyArtifact.getFile();
+                    if( dependencyFile.isFile() && dependencyFile.canRead() ){
+                        bundleFingerprint.addFile(dependencyFile.getName(), dependencyFile.toPath());
+                    }
+                }
+            }
+
+            if( additionalAppResources != null ){
+                bundleFingerprint.addFolder("additionalAppResources", additionalAppResources.toPath());
+            }
+            if( additionalAppResourcesList != null ){
+                for( File additionalResources : additionalAppResourcesList ){
+                    if( additionalResources != null ){
+                        bundleFingerprint.addFolder("additionalAppResourcesList", additionalResources.toPath());
+                    }
+                }
+            }
+            String fingerprint = bundleFingerprint.toHexString();
+            if( verbose ){
+                getLog().info("Using bundle fingerprint: " + fingerprint);
+            }
+            return fingerprint;
+        } catch(IOException ex){
+            getLog().warn("Could not create fingerprint of all bundle inputs, bundle cache is not used. " + ex.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Sign parameters might contain absolute paths (e.g. the keystore), which would make the fingerprint depend on the location of
+     * the project.
+     */
+    private String relativizeToBasedir(Path basedir, String signParameter) {
+        try{
+            Path possiblePath = Paths.get(signParameter);
+            if( possiblePath.isAbsolute() && possiblePath.normalize().startsWith(basedir) ){
+                return basedir.relativize(possiblePath.normalize()).toString().replace("\\", "/");
+            }
+        } catch(InvalidPathException ex){
+            // not a path at all
+        }
+        return signParameter;
+    }
+
+    private boolean isBundleUpToDate(String bundleFingerprint, Properties settingsForThisRun) {
+        Path bundleFingerprintFile = getBundleFingerprintFile();
+        if( !Files.isRegularFile(bundleFingerprintFile) || !outputFolder.isDirectory() || (createPackedBundle && !getPackedBundleFile().isFile()) ){
+            return false;
+        }
+        Properties previousResults = new Properties();
+        try(InputStream fingerprintInputStream = Files.newInputStream(bundleFingerprintFile)){
+            previousResults.load(fingerprintInputStream);
+        } catch(IOException ex){
+            return false;
+        }
+        if( !bundleFingerprint.equals(previousResults.remove(BUNDLE_FINGERPRINT_KEY)) ){
+            return false;
+        }
+        // the output might got modified after bundling
+        try{
+            if( !createOutputFingerprint().equals(previousResults.remove(OUTPUT_FINGERPRINT_KEY)) ){
+                if( verbose ){
+                    getLog().info("Bundle output was modified after bundling.");
+                }
+                return false;
+            }
+        } catch(IOException ex){
+            return false;
+        }
+        getLog().info("Bundle is up to date, skipping bundling.");
+        settingsForThisRun.putAll(previousResults);
+        settingsForThisRun.put("bundleCache.result", "up-to-date");
+        return true;
+    }
+
+    private boolean restoreBundleFromCache(BundleCache usedBundleCache, String bundleFingerprint, Properties settingsForThisRun) throws MojoExecutionException {
+        Properties cachedResults = new Properties();
+        try{
+            Files.deleteIfExists(getBundleFingerprintFile());
+            // these belong to the replaced packed bundle
+            for( String checksumExtension : CHECKSUM_EXTENSIONS ){
+                Files.deleteIfExists(getChecksumFile(getPackedBundleFile(), checksumExtension).toPath());
+            }
+            Files.deleteIfExists(getPackingPolicyFile(getPackedBundleFile()).toPath());
+            if( !usedBundleCache.restore(bundleFingerprint, outputFolder.toPath(), createPackedBundle ? getPackedBundleFile().toPath() : null, cachedResults) ){
+                if( verbose ){
+                    getLog().info("Bundle was not found inside bundle cache.");
+                }
+                return false;
+            }
+            // the restored lib-folder is not known to that index
+            Files.deleteIfExists(getLibFolderIndexFile());
+            writeBundleFingerprintFile(bundleFingerprint, cachedResults);
+            recordFilesCopied(outputFolder.toPath());
+        } catch(IOException ex){
+            throw new MojoExecutionException("Could not restore bundle from bundle cache.", ex);
+        }
+        getLog().info("Restored bundle from bundle cache.");
+        settingsForThisRun.putAll(cachedResults);
+        settingsForThisRun.put("bundleCache.result", "restored");
+        return true;
+    }
+
+    private void storeBundleInCache(BundleCache usedBundleCache, String bundleFingerprint, boolean storeInBundleCache, Properties settingsForThisRun) {
+        // at this point only results of this run were recorded, no configuration
+        Properties results = new Properties();
+        results.putAll(settingsForThisRun);
+        if( !storeInBundleCache ){
+            getLog().info("Output folder was not empty before bundling, bundle is not stored inside bundle cache. Set 'cleanupOutputFolder' to 'true' for using the bundle cache.");
+            try{
+                writeBundleFingerprintFile(bundleFingerprint, results);
             } catch(IOException ex){
-                throw new MojoExecutionException("Could not create packed bundle, please check your build log.", ex);
+                getLog().warn("Could not write bundle fingerprint file.", ex);
+            }
+            return;
+        }
+        if( verbose ){
+            getLog().info("Storing bundle inside bundle cache...");
+        }
+        try{
+            usedBundleCache.store(bundleFingerprint, outputFolder.toPath(), createPackedBundle ? getPackedBundleFile().toPath() : null, results);
+            writeBundleFingerprintFile(bundleFingerprint, results);
+            int evictedEntries = usedBundleCache.evict();
+            if( verbose && evictedEntries > 0 ){
+                getLog().info(String.format("Removed %s least recently used entries from bundle cache.", evictedEntries));
             }
+            settingsForThisRun.put("bundleCache.result", "stored");
+        } catch(IOException ex){
+            // just a cache, does not break the created bundle
+            getLog().warn("Could not store bundle inside bundle cache.", ex);
+        }
+    }
+
+    private void writeBundleFingerprintFile(String bundleFingerprint, Properties results) throws IOException {
+        Properties fingerprintProperties = new Properties();
+        fingerprintProperties.putAll(results);
+        fingerprintProperties.put(BUNDLE_FINGERPRINT_KEY, bundleFingerprint);
+        fingerprintProperties.put(OUTPUT_FINGERPRINT_KEY, createOutputFingerprint());
+        try(OutputStream fingerprintOutputStream = Files.newOutputStream(getBundleFingerprintFile())){
+            fingerprintProperties.store(fingerprintOutputStream, null);
+        }
+    }
+
+    /**
+     * Identifies the created output by the relative path, size and last-modified time of all files, reading all the content would
+     * take nearly as long as bundling again.
+     */
+    private String createOutputFingerprint() throws IOException {
+        BundleFingerprint outputFingerprint = new BundleFingerprint();
+        outputFingerprint.addFolderListing("outputFolder", outputFolder.toPath());
+        if( createPackedBundle ){
+            outputFingerprint.addFileListing("packedBundle", getPackedBundleFile().toPath());
         }
+        return outputFingerprint.toHexString();
+    }
+
+    private Path getBundleFingerprintFile() {
+        String fingerprintFilename = "distbundle.java-app-bundle." + mojoExecution.getExecutionId() + ".fingerprint";
+        return new File(project.getBuild().getDirectory()).toPath().resolve(fingerprintFilename);
     }
 
     private void writeMojoExecutionConfigurationLog(Properties settingsForThisRun) throws MojoExecutionException {
@@ -421,15 +1141,18 @@ public class CreateJavaAppBundle extends AbstractMojo {
         settingsForThisRun.put("outputLibFolder", outputLibFolder.getAbsolutePath());
         // this folder might be removed due to being empty
         if( outputLibFolder.exists() ){
-            settingsForThisRun.put("outputLibFolder.entries", String.valueOf(outputLibFolder.list().length));
+            settingsForThisRun.put("outputLibFolder.entries", String.valueOf(countFolderEntries(outputLibFolder)));
         } else {
             settingsForThisRun.put("outputLibFolder.entries", "0");
         }
         settingsForThisRun.put("copySystemDependencies", String.valueOf(copySystemDependencies));
+        settingsForThisRun.put("incrementalDependencyCopy", String.valueOf(incrementalDependencyCopy));
+        settingsForThisRun.put("dependencyCopyParallelism", String.valueOf(dependencyCopyParallelism));
+        settingsForThisRun.put("dependencyLinkMode", String.valueOf(dependencyLinkMode));
         settingsForThisRun.put("additionalAppResources", additionalAppResources.getAbsolutePath());
         // this folder is optional
         if( additionalAppResources.exists() ){
-            settingsForThisRun.put("additionalAppResources.entries", String.valueOf(additionalAppResources.list().length));
+            settingsForThisRun.put("additionalAppResources.entries", String.valueOf(countFolderEntries(additionalAppResources)));
         } else {
             settingsForThisRun.put("additionalAppResources.entries", "0");
         }
@@ -442,28 +1165,82 @@ public class CreateJavaAppBundle extends AbstractMojo {
         settingsForThisRun.put("generateClasspathUsingLibFolderFileFilter", String.valueOf(generateClasspathUsingLibFolderFileFilter));
         settingsForThisRun.put("scanForMainClass", String.valueOf(scanForMainClass));
         settingsForThisRun.put("scanForMainClassWithLocationPrefix", Optional.ofNullable(scanForMainClassWithLocationPrefix).orElse(""));
+        Optional.ofNullable(scanForAdditionalClasses).ifPresent(additionalClasses -> {
+            settingsForThisRun.put("scanForAdditionalClasses", String.join("|||", additionalClasses));
+        });
+        settingsForThisRun.put("scanForMainClassInsideNestedJarFiles", String.valueOf(scanForMainClassInsideNestedJarFiles));
+        settingsForThisRun.put("scanForMainClassNestedJarFilesPrefix", Optional.ofNullable(scanForMainClassNestedJarFilesPrefix).orElse(""));
         settingsForThisRun.put("signJars", String.valueOf(signJars));
         settingsForThisRun.put("jdkPath", jdkPath);
         Optional.ofNullable(signParameters).ifPresent(parameters -> {
             settingsForThisRun.put("signParameters", String.join("|||", parameters));
         });
         settingsForThisRun.put("signJarsLibFilter", Optional.ofNullable(signJarsLibFilter).orElse(""));
+        settingsForThisRun.put("signingParallelism", String.valueOf(signingParallelism));
+        settingsForThisRun.put("signingEngine", String.valueOf(signingEngine));
+        settingsForThisRun.put("signedJarCache", String.valueOf(signedJarCache));
+        settingsForThisRun.put("signedJarCacheFolder", signedJarCacheFolder.getAbsolutePath());
+        settingsForThisRun.put("signedJarCacheMaxSize", String.valueOf(signedJarCacheMaxSize));
+        settingsForThisRun.put("alreadySignedJarsPolicy", String.valueOf(alreadySignedJarsPolicy));
+        settingsForThisRun.put("createBundleManifest", String.valueOf(createBundleManifest));
         settingsForThisRun.put("createPackedBundle", String.valueOf(createPackedBundle));
+        settingsForThisRun.put("packingParallelism", String.valueOf(packingParallelism));
+        settingsForThisRun.put("packingCompressionLevel", String.valueOf(packingCompressionLevel));
+        settingsForThisRun.put("incrementalPacking", String.valueOf(incrementalPacking));
+        if( packingCompressionRules != null ){
+            settingsForThisRun.put("packingCompressionRules", String.join("|||", packingCompressionRules));
+        }
+        settingsForThisRun.put("bundleCache", String.valueOf(bundleCache));
+        settingsForThisRun.put("bundleCacheFolder", bundleCacheFolder.getAbsolutePath());
+        settingsForThisRun.put("bundleCacheMaxSize", String.valueOf(bundleCacheMaxSize));
+        Optional.ofNullable(outputTimestamp).ifPresent(timestamp -> {
+            settingsForThisRun.put("outputTimestamp", timestamp);
+        });
         settingsForThisRun.put("attachAsArtifact", String.valueOf(attachAsArtifact));
         settingsForThisRun.put("targetClassifier", targetClassifier);
+        settingsForThisRun.put("createPackedBundleChecksums", String.valueOf(createPackedBundleChecksums));
+        bundlingMetrics.writeTo(settingsForThisRun);
 
         String settingsFilename = "distbundle.java-app-execution." + mojoExecution.getExecutionId() + ".properties";
         Path settingsTargetPath = new File(project.getBuild().getDirectory()).toPath().resolve(settingsFilename);
-        try{
-            Files.createFile(settingsTargetPath);
-        } catch(IOException ex){
-            throw new MojoExecutionException("Could not create execution log.", ex);
-        }
-        try(OutputStream settingsOutputStream = Files.newOutputStream(settingsTargetPath, StandardOpenOption.TRUNCATE_EXISTING)){
+        // when running without clean-goal, that file might already exist from some previous run
+        try(OutputStream settingsOutputStream = Files.newOutputStream(settingsTargetPath, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)){
             settingsForThisRun.store(settingsOutputStream, null);
         } catch(IOException ex){
             throw new MojoExecutionException("Could not write to execution log.", ex);
         }
+        bundlingMetrics.addFileWritten(settingsTargetPath.toFile().length());
+    }
+
+    private void writeMetricsReport() throws MojoExecutionException {
+        String metricsFilename = "distbundle.java-app-metrics." + mojoExecution.getExecutionId() + ".json";
+        Path metricsTargetPath = new File(project.getBuild().getDirectory()).toPath().resolve(metricsFilename);
+        try{
+            bundlingMetrics.writeJsonReport(metricsTargetPath, mojoExecution.getExecutionId());
+        } catch(IOException ex){
+            throw new MojoExecutionException("Could not write metrics report.", ex);
+        }
+    }
+
+    private void recordFilesRead(Path folder) throws IOException {
+        Files.walkFileTree(folder, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                bundlingMetrics.addFileRead(attrs.size());
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    private void recordFilesCopied(Path sourceFolder) throws IOException {
+        Files.walkFileTree(sourceFolder, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                bundlingMetrics.addFileRead(attrs.size());
+                bundlingMetrics.addFileWritten(attrs.size());
+                return FileVisitResult.CONTINUE;
+            }
+        });
     }
 
     private void signJarFiles(Path targetAppArtifact) throws MojoFailureException, MojoExecutionException {
@@ -476,31 +1253,62 @@ public class CreateJavaAppBundle extends AbstractMojo {
                 throw new MojoFailureException("Missing configuration of 'signParameters'-parameter. Please check your plugin-configuration.");
             }
 
-            // find jarsigner
-            Path jdkLocationPath = new File(jdkPath).toPath();
-            // speculation: in case of older JDKs, the "java.home" property is the JRE inside the JDK, so if we can detect the "java"-binary inside
-            // parent folder-structure, we are using JDK prior JDK 9
-            // otherwise we are using that folder and are looking for jarsigner inside the "bin"-folder, which is valid for normal JDK 9+ and when
-            // having customized jdkHome being set manually inside plugin-configuration
-            String platformExecutableFileExtension = internalUtils.isPlatformWindows() ? ".exe" : "";
-            boolean isJreInsideJdk = Files.exists(jdkLocationPath.getParent().resolve("bin").resolve("java" + platformExecutableFileExtension), LinkOption.NOFOLLOW_LINKS);
+            if( signingEngine == null || signingEngine.trim().isEmpty() ){
+                signingEngine = SIGNING_ENGINE_JARSIGNER;
+            }
+            signingEngine = signingEngine.trim().toLowerCase();
+            if( !SIGNING_ENGINE_JARSIGNER.equals(signingEngine) && !SIGNING_ENGINE_IN_PROCESS.equals(signingEngine) ){
+                throw new MojoFailureException(String.format("Unknown value for 'signingEngine': '%s'. Please check your plugin-configuration.", signingEngine));
+            }
+
+            if( alreadySignedJarsPolicy == null || alreadySignedJarsPolicy.trim().isEmpty() ){
+                alreadySignedJarsPolicy = ALREADY_SIGNED_JARS_POLICY_RESIGN;
+            }
+            alreadySignedJarsPolicy = alreadySignedJarsPolicy.trim().toLowerCase();
+            if( !ALREADY_SIGNED_JARS_POLICY_SKIP.equals(alreadySignedJarsPolicy) && !ALREADY_SIGNED_JARS_POLICY_RESIGN.equals(alreadySignedJarsPolicy) && !ALREADY_SIGNED_JARS_POLICY_STRIP_AND_SIGN.equals(alreadySignedJarsPolicy) ){
+                throw new MojoFailureException(String.format("Unknown value for 'alreadySignedJarsPolicy': '%s'. Please check your plugin-configuration.", alreadySignedJarsPolicy));
+            }
+
+            AtomicReference<InProcessJarSigner> inProcessJarSigner = new AtomicReference<>();
             AtomicReference<String> pathToJarsigner = new AtomicReference<>();
-            if( isJreInsideJdk ){
-                // look inside parent folder
-                Path jarSignerPath = jdkLocationPath.getParent().resolve("bin").resolve("jarsigner" + platformExecutableFileExtension).toAbsolutePath();
-                if( Files.exists(jarSignerPath, LinkOption.NOFOLLOW_LINKS) ){
-                    pathToJarsigner.set(jarSignerPath.toString());
+            if( SIGNING_ENGINE_IN_PROCESS.equals(signingEngine) ){
+                if( !InProcessJarSigner.isAvailable() ){
+                    throw new MojoFailureException("Signing in-process requires JDK 9 or newer, please set 'signingEngine' to \"jarsigner\".");
+                }
+                try{
+                    // keystore gets loaded only once for all jar-files
+                    inProcessJarSigner.set(InProcessJarSigner.create(signParameters, project.getBasedir().toPath()));
+                } catch(IllegalArgumentException ex){
+                    throw new MojoFailureException("Could not use 'signParameters' for signing in-process, please check your plugin-configuration or set 'signingEngine' to \"jarsigner\". " + ex.getMessage(), ex);
+                } catch(IOException ex){
+                    throw new MojoExecutionException("Could not prepare signing in-process.", ex);
                 }
             } else {
-                // look inside given folder, should be the default-case since JDK 9+
-                Path jarSignerPath = jdkLocationPath.resolve("bin").resolve("jarsigner" + platformExecutableFileExtension).toAbsolutePath();
-                if( Files.exists(jarSignerPath, LinkOption.NOFOLLOW_LINKS) ){
-                    pathToJarsigner.set(jarSignerPath.toString());
+                // find jarsigner
+                Path jdkLocationPath = new File(jdkPath).toPath();
+                // speculation: in case of older JDKs, the "java.home" property is the JRE inside the JDK, so if we can detect the "java"-binary inside
+                // parent folder-structure, we are using JDK prior JDK 9
+                // otherwise we are using that folder and are looking for jarsigner inside the "bin"-folder, which is valid for normal JDK 9+ and when
+                // having customized jdkHome being set manually inside plugin-configuration
+                String platformExecutableFileExtension = internalUtils.isPlatformWindows() ? ".exe" : "";
+                boolean isJreInsideJdk = Files.exists(jdkLocationPath.getParent().resolve("bin").resolve("java" + platformExecutableFileExtension), LinkOption.NOFOLLOW_LINKS);
+                if( isJreInsideJdk ){
+                    // look inside parent folder
+                    Path jarSignerPath = jdkLocationPath.getParent().resolve("bin").resolve("jarsigner" + platformExecutableFileExtension).toAbsolutePath();
+                    if( Files.exists(jarSignerPath, LinkOption.NOFOLLOW_LINKS) ){
+                        pathToJarsigner.set(jarSignerPath.toString());
+                    }
+                } else {
+                    // look inside given folder, should be the default-case since JDK 9+
+                    Path jarSignerPath = jdkLocationPath.resolve("bin").resolve("jarsigner" + platformExecutableFileExtension).toAbsolutePath();
+                    if( Files.exists(jarSignerPath, LinkOption.NOFOLLOW_LINKS) ){
+                        pathToJarsigner.set(jarSignerPath.toString());
+                    }
                 }
-            }
 
-            if( pathToJarsigner.get() == null ){
-                throw new MojoFailureException("Could not find jarsigner-executable, please check your JDK-installation of the configured JDK for this plugin-configuration.");
+                if( pathToJarsigner.get() == null ){
+                    throw new MojoFailureException("Could not find jarsigner-executable, please check your JDK-installation of the configured JDK for this plugin-configuration.");
+                }
             }
 
             Set<String> filepathsToSign = new LinkedHashSet<>();
@@ -534,75 +1342,292 @@ public class CreateJavaAppBundle extends AbstractMojo {
                 getLog().info(String.format("Found %s files to sign.", filepathsToSign.size()));
             }
 
+            // find jar-files having some vendor signature, only their central directory gets read
+            Set<String> alreadySignedFilepaths = ConcurrentHashMap.newKeySet();
+            if( !ALREADY_SIGNED_JARS_POLICY_RESIGN.equals(alreadySignedJarsPolicy) ){
+                filepathsToSign.parallelStream().forEach(filepathToSign -> {
+                    bundlingMetrics.addFileTouched();
+                    try{
+                        if( JarSignatures.isSigned(new File(filepathToSign).toPath()) ){
+                            alreadySignedFilepaths.add(filepathToSign);
+                        }
+                    } catch(IOException ex){
+                        // broken jar-files are reported by the signing itself
+                    }
+                });
+                if( verbose && !alreadySignedFilepaths.isEmpty() ){
+                    getLog().info(String.format("Found %s already signed files, using policy '%s'.", alreadySignedFilepaths.size(), alreadySignedJarsPolicy));
+                }
+                if( ALREADY_SIGNED_JARS_POLICY_SKIP.equals(alreadySignedJarsPolicy) ){
+                    filepathsToSign.removeAll(alreadySignedFilepaths);
+                }
+            }
+
+            int usedParallelism = Math.max(1, Math.min(signingParallelism, filepathsToSign.size()));
+            if( verbose && usedParallelism > 1 ){
+                getLog().info(String.format("Signing files using %s parallel jarsigner processes or threads...", usedParallelism));
+            }
+
+            SignedJarCache usedSignedJarCache = createSignedJarCache();
+
             // do signing stuff
             AtomicReference<MojoExecutionException> signingException = new AtomicReference<>();
-            filepathsToSign.forEach(filepathToSign -> {
-                if( signingException.get() != null ){
-                    return;
-                }
-                List<String> signingCommand = new ArrayList<>();
-                // command
-                signingCommand.add(pathToJarsigner.get());
+            ExecutorService signingExecutor = Executors.newFixedThreadPool(usedParallelism);
+            try{
+                filepathsToSign.forEach(filepathToSign -> {
+                    signingExecutor.execute(bundlingMetrics.measureAllocations(() -> {
+                        // when having the first exception, skip all following tasks
+                        if( signingException.get() != null ){
+                            return;
+                        }
+                        Path fileToSign = new File(filepathToSign).toPath();
+                        if( bundleManifest != null ){
+                            // gets changed, so the recorded checksum gets invalid
+                            bundleManifest.forget(fileToSign);
+                        }
+                        bundlingMetrics.addFileRead(fileToSign.toFile().length());
+                        if( ALREADY_SIGNED_JARS_POLICY_STRIP_AND_SIGN.equals(alreadySignedJarsPolicy) && alreadySignedFilepaths.contains(filepathToSign) ){
+                            if( verbose ){
+                                getLog().info("Removing existing signature from jar-file: " + filepathToSign);
+                            }
+                            try{
+                                JarSignatures.stripSignatures(fileToSign);
+                            } catch(IOException ex){
+                                if( signingException.compareAndSet(null, new MojoExecutionException("Could not remove existing signature from jar-file: " + filepathToSign, ex)) ){
+                                    signingExecutor.shutdownNow();
+                                }
+                                return;
+                            }
+                        }
+                        // one event per jar-file, covering the cache lookup and the signing itself
+                        FlightRecorderEvents.TimedEvent jarSigningEvent = FlightRecorderEvents.begin(FlightRecorderEvents.JAR_SIGNING);
+                        String cacheKey = null;
+                        if( usedSignedJarCache != null ){
+                            try{
+                                cacheKey = usedSignedJarCache.getCacheKey(fileToSign);
+                                if( usedSignedJarCache.restore(cacheKey, fileToSign, DEPENDENCY_LINK_MODE_HARDLINK.equals(dependencyLinkMode)) ){
+                                    jarSigningEvent.commit(filepathToSign, signingEngine, true);
+                                    if( verbose ){
+                                        getLog().info("Using already signed jar-file from cache: " + filepathToSign);
+                                    }
+                                    bundlingMetrics.addFileWritten(fileToSign.toFile().length());
+                                    return;
+                                }
+                            } catch(IOException ex){
+                                getLog().warn("Could not use signed jar-file cache for: " + filepathToSign, ex);
+                                cacheKey = null;
+                            }
+                        }
+                        try{
+                            signJarFile(filepathToSign, inProcessJarSigner.get(), pathToJarsigner.get(), usedParallelism > 1);
+                            jarSigningEvent.commit(filepathToSign, signingEngine, false);
+                        } catch(MojoExecutionException ex){
+                            if( signingException.compareAndSet(null, ex) ){
+                                // stop all other workers, running jarsigner processes are getting destroyed
+                                signingExecutor.shutdownNow();
+                            }
+                            return;
+                        } catch(IOException | InterruptedException ex){
+                            if( signingException.compareAndSet(null, new MojoExecutionException("There was an exception while signing jar-file: " + filepathToSign, ex)) ){
+                                signingExecutor.shutdownNow();
+                            }
+                            return;
+                        }
+                        bundlingMetrics.addFileWritten(fileToSign.toFile().length());
+                        if( cacheKey != null ){
+                            try{
+                                usedSignedJarCache.store(cacheKey, fileToSign);
+                            } catch(IOException ex){
+                                getLog().warn("Could not store signed jar-file inside cache: " + filepathToSign, ex);
+                            }
+                        }
+                    }));
+                });
+            } catch(RejectedExecutionException ex){
+                // some worker already failed and stopped the executor
+            }
+            signingExecutor.shutdown();
+            try{
+                signingExecutor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+            } catch(InterruptedException ex){
+                signingExecutor.shutdownNow();
+                Thread.currentThread().interrupt();
+                throw new MojoExecutionException("Got interrupted while signing jar-files.", ex);
+            }
+            if( signingException.get() != null ){
+                throw signingException.get();
+            }
 
-                // being verbose makes jarsigner verbose too ;)
+            if( usedSignedJarCache != null ){
                 if( verbose ){
-                    boolean alreadyContainsVerboseFlag = signParameters.stream().filter(parameter -> parameter.trim().equalsIgnoreCase("-verbose")).count() > 0;
-                    if( !alreadyContainsVerboseFlag ){
-                        signingCommand.add("-verbose");
+                    getLog().info(String.format("Signed jar-file cache: %s hits, %s misses.", usedSignedJarCache.getHits(), usedSignedJarCache.getMisses()));
+                }
+                try{
+                    int evictedEntries = usedSignedJarCache.evict();
+                    if( verbose && evictedEntries > 0 ){
+                        getLog().info(String.format("Removed %s least recently used entries from signed jar-file cache.", evictedEntries));
                     }
+                } catch(IOException ex){
+                    getLog().warn("Could not remove old entries from signed jar-file cache.", ex);
                 }
-                // parameters
-                signingCommand.addAll(signParameters);
+            }
+        }
+    }
 
-                // replace {JAR}-template with real filename
-                List<String> signingCommandToUse = signingCommand.stream().map(signingParameter -> {
-                    if( "{JAR}".equalsIgnoreCase(signingParameter) ){
-                        return filepathToSign;
-                    }
-                    return signingParameter;
-                }).collect(Collectors.toList());
+    private SignedJarCache createSignedJarCache() {
+        if( !signedJarCache ){
+            return null;
+        }
+        try{
+            // only the identity of the signer is needed here, the key itself is not loaded
+            String signingIdentity = signingEngine + "|" + InProcessJarSigner.getSigningIdentity(signParameters, project.getBasedir().toPath());
+            return new SignedJarCache(signedJarCacheFolder.toPath(), signingIdentity, Math.max(0, signedJarCacheMaxSize) * 1024L * 1024L);
+        } catch(IllegalArgumentException | IOException ex){
+            getLog().warn("Could not determine signing identity from 'signParameters', signed jar-file cache is not used. " + ex.getMessage());
+            return null;
+        }
+    }
 
-                // run jarsigner
-                try{
-                    ProcessBuilder pb = new ProcessBuilder()
-                            .inheritIO()
-                            .directory(project.getBasedir())
-                            .command(signingCommandToUse);
-                    if( verbose ){
-                        getLog().info("Running command: " + String.join(" ", signingCommandToUse));
-                    }
-                    Process p = pb.start();
-                    p.waitFor();
-                    if( p.exitValue() != 0 ){
-                        signingException.set(new MojoExecutionException("Signing jar using jarsigner wasn't successful! Please check build-log."));
+    private void signJarFile(String filepathToSign, InProcessJarSigner inProcessJarSigner, String pathToJarsigner, boolean captureOutput) throws MojoExecutionException, IOException, InterruptedException {
+        if( inProcessJarSigner != null ){
+            if( verbose ){
+                getLog().info("Signing jar-file in-process: " + filepathToSign);
+            }
+            inProcessJarSigner.sign(new File(filepathToSign).toPath());
+            return;
+        }
+
+        List<String> signingCommand = new ArrayList<>();
+        // command
+        signingCommand.add(pathToJarsigner);
+
+        // being verbose makes jarsigner verbose too ;)
+        if( verbose ){
+            boolean alreadyContainsVerboseFlag = signParameters.stream().filter(parameter -> parameter.trim().equalsIgnoreCase("-verbose")).count() > 0;
+            if( !alreadyContainsVerboseFlag ){
+                signingCommand.add("-verbose");
+            }
+        }
+        // parameters
+        signingCommand.addAll(signParameters);
+
+        // replace {JAR}-template with real filename
+        List<String> signingCommandToUse = signingCommand.stream().map(signingParameter -> {
+            if( "{JAR}".equalsIgnoreCase(signingParameter) ){
+                return filepathToSign;
+            }
+            return signingParameter;
+        }).collect(Collectors.toList());
+
+        runJarsigner(signingCommandToUse, captureOutput);
+    }
+
+    private void runJarsigner(List<String> signingCommandToUse, boolean captureOutput) throws MojoExecutionException, IOException, InterruptedException {
+        ProcessBuilder pb = new ProcessBuilder()
+                .directory(project.getBasedir())
+                .command(signingCommandToUse);
+        if( verbose ){
+            getLog().info("Running command: " + String.join(" ", signingCommandToUse));
+        }
+        if( !captureOutput ){
+            pb.inheritIO();
+            Process p = pb.start();
+            try{
+                p.waitFor();
+            } catch(InterruptedException ex){
+                p.destroyForcibly();
+                throw ex;
+            }
+            if( p.exitValue() != 0 ){
+                throw new MojoExecutionException("Signing jar using jarsigner wasn't successful! Please check build-log.");
+            }
+            return;
+        }
+
+        // when running multiple processes, each output gets written as a whole afterwards, otherwise the build-log would be mixed up
+        Path outputFile = Files.createTempFile("distbundle-jarsigner", ".log");
+        try{
+            pb.redirectErrorStream(true);
+            pb.redirectOutput(outputFile.toFile());
+            Process p = pb.start();
+            // there is no console to ask for passwords, so make jarsigner fail instead of waiting forever
+            p.getOutputStream().close();
+            try{
+                p.waitFor();
+            } catch(InterruptedException ex){
+                p.destroyForcibly();
+                throw ex;
+            }
+            // being verbose, the output contains every entry of the jar-file, so do not read it as a whole
+            boolean failed = p.exitValue() != 0;
+            synchronized(this){
+                try(BufferedReader outputReader = Files.newBufferedReader(outputFile, Charset.defaultCharset())){
+                    String outputLine;
+                    while( (outputLine = outputReader.readLine()) != null ){
+                        if( failed ){
+                            getLog().error(outputLine);
+                        } else {
+                            getLog().info(outputLine);
+                        }
                     }
-                } catch(IOException | InterruptedException ex){
-                    signingException.set(new MojoExecutionException("There was an exception while signing jar-file: " + filepathToSign, ex));
                 }
-            });
-            if( signingException.get() != null ){
-                throw signingException.get();
             }
+            if( failed ){
+                throw new MojoExecutionException("Signing jar using jarsigner wasn't successful! Please check build-log.");
+            }
+        } finally{
+            Files.deleteIfExists(outputFile);
         }
     }
 
     private void scanForMainClassInsideJarFile(Path targetAppArtifact) throws MojoExecutionException {
+        if( !scanForMainClass ){
+            return;
+        }
         boolean hasCustomMainClass = mainClass != null && !mainClass.trim().isEmpty();
-        if( hasCustomMainClass && scanForMainClass ){
+        List<String> classesToScanFor = new ArrayList<>();
+        if( hasCustomMainClass ){
+            classesToScanFor.add(mainClass.trim());
+        }
+        Optional.ofNullable(scanForAdditionalClasses).ifPresent(additionalClasses -> {
+            additionalClasses.stream()
+                    .filter(additionalClass -> additionalClass != null && !additionalClass.trim().isEmpty())
+                    .map(String::trim)
+                    .forEach(classesToScanFor::add);
+        });
+        if( classesToScanFor.isEmpty() ){
+            return;
+        }
+        if( verbose ){
+            getLog().info("Scanning for custom main-class...");
+        }
+        String locationPrefix = scanForMainClassWithLocationPrefix;
+        if( locationPrefix == null ){
+            locationPrefix = "";
+        }
+        // open generated jar-file only once for all classes
+        bundlingMetrics.addFileTouched();
+        Set<String> missingClasses = internalUtils.findClassesMissingInsideJarFile(classesToScanFor, locationPrefix, targetAppArtifact.toFile());
+        if( !missingClasses.isEmpty() && scanForMainClassInsideNestedJarFiles ){
             if( verbose ){
-                getLog().info("Scanning for custom main-class...");
-            }
-            String locationPrefix = scanForMainClassWithLocationPrefix;
-            if( locationPrefix == null ){
-                locationPrefix = "";
+                getLog().info("Scanning nested jar-files for missing classes...");
             }
-            if( !internalUtils.isClassInsideJarFile(mainClass.trim(), locationPrefix, targetAppArtifact.toFile()) ){
-                throw new MojoExecutionException(String.format("Configured main-class '%s' was not found inside generated jar-file. Please check the built artifact or plugin-configuration.", mainClass));
+            String nestedJarFilesPrefix = Optional.ofNullable(scanForMainClassNestedJarFilesPrefix).orElse("");
+            try{
+                missingClasses = NestedJarFileScanner.findClassesMissingInsideNestedJarFiles(missingClasses, nestedJarFilesPrefix, targetAppArtifact);
+            } catch(IOException ex){
+                throw new MojoExecutionException("Could not scan nested jar-files inside generated jar-file.", ex);
             }
         }
+        if( hasCustomMainClass && missingClasses.contains(mainClass.trim()) ){
+            throw new MojoExecutionException(String.format("Configured main-class '%s' was not found inside generated jar-file. Please check the built artifact or plugin-configuration.", mainClass));
+        }
+        if( !missingClasses.isEmpty() ){
+            throw new MojoExecutionException(String.format("Configured additional classes '%s' were not found inside generated jar-file. Please check the built artifact or plugin-configuration.", String.join(", ", missingClasses)));
+        }
     }
 
-    private void adjustClasspathInsideJarFile(Set<String> copiedDependencies, Properties settingsForThisRun, Path targetAppArtifact) throws MojoFailureException, MojoExecutionException {
+    private void adjustClasspathInsideManifest(Set<String> copiedDependencies, Properties settingsForThisRun, Manifest manifest) throws MojoFailureException, MojoExecutionException {
         if( generateClasspath ){
             List<String> entriesForClasspath = new ArrayList<>();
             if( generateClasspathUsingLibFolder ){
@@ -626,6 +1651,8 @@ public class CreateJavaAppBundle extends AbstractMojo {
                 } catch(IOException ioex){
                     throw new MojoExecutionException(null, ioex);
                 }
+                // the order of the filesystem is not stable
+                entriesForClasspath.sort(null);
             } else {
                 if( verbose ){
                     getLog().info("Generating classpath using registered and copied dependencies...");
@@ -641,61 +1668,37 @@ public class CreateJavaAppBundle extends AbstractMojo {
             }
             final String relativeLibFolder = relativeLibFolderLocation.toString();
 
+            // keep the order, the first entry wins when having the same class inside multiple jar-files
             Set<String> pathCorrectedClasspathEntries = entriesForClasspath.stream()
                     .map(entry -> relativeLibFolder + entry.replace("\\", "/"))
-                    .collect(Collectors.toSet());
+                    .collect(Collectors.toCollection(LinkedHashSet::new));
 
             // as app-folder and lib-folder might not be in the thought location, calculate relative location
             String resultingClasspath = String.join(" ", pathCorrectedClasspathEntries);
             settingsForThisRun.put("generateClasspath.generated", resultingClasspath);
 
-            Map<String, String> env = new HashMap<>();
-            URI uriToJarFile = targetAppArtifact.toAbsolutePath().toUri();
-            // using explicit JAR URL syntax
-            URI uriToFileSystem = URI.create("jar:" + uriToJarFile.toString());
-            try(FileSystem zipFS = FileSystems.newFileSystem(uriToFileSystem, env, null)){
-                boolean hasManifestFile = false;
-                Manifest manifest = new Manifest();
-
-                Path manifestFile = zipFS.getPath("/META-INF/MANIFEST.MF");
-                if( Files.exists(manifestFile, LinkOption.NOFOLLOW_LINKS) ){
-                    hasManifestFile = true;
-                    // if it exists, load existing values
-                    try(InputStream manifestAsStream = Files.newInputStream(manifestFile, StandardOpenOption.READ)){
-                        manifest.read(manifestAsStream);
-                    }
-                }
-
-                // adjust manifest-entries
-                if( !hasManifestFile ){
-                    // fail the build, might happen when multiple processes are working in the same file in parallel
-                    throw new MojoFailureException("Could not find MANIFEST.MF inside generated jar-file.");
-                }
-
-                Attributes mainAttributes = manifest.getMainAttributes();
-                mainAttributes.put(Attributes.Name.CLASS_PATH, resultingClasspath.trim());
+            if( manifest == null ){
+                // fail the build, the used artifact has to be some executable jar-file
+                throw new MojoFailureException("Could not find MANIFEST.MF inside generated jar-file.");
+            }
 
-                if( verbose ){
-                    getLog().info("Changing/Writing classpath in manifest of JAR file...");
-                }
-                // (over)write it back to artifact
-                try(OutputStream manifestOutput = Files.newOutputStream(manifestFile, StandardOpenOption.TRUNCATE_EXISTING)){
-                    manifest.write(manifestOutput);
-                }
-            } catch(IOException ex){
-                throw new MojoExecutionException("Could not process JAR file.", ex);
+            if( verbose ){
+                getLog().info("Changing/Writing classpath in manifest of JAR file...");
             }
+            Attributes mainAttributes = manifest.getMainAttributes();
+            mainAttributes.put(Attributes.Name.CLASS_PATH, resultingClasspath.trim());
         }
     }
 
     private void copyAdditionalApplicationResources() throws MojoExecutionException {
-        if( additionalAppResources != null && additionalAppResources.exists() && additionalAppResources.list().length > 0 ){
+        if( additionalAppResources != null && additionalAppResources.exists() && !isFolderEmpty(additionalAppResources) ){
             if( verbose ){
                 getLog().info("Copying additional application resources...");
                 getLog().info("Using source: " + additionalAppResources.toString());
             }
             try{
-                internalUtils.copyRecursive(additionalAppResources.toPath(), outputFolder.toPath());
+                internalUtils.copyRecursive(additionalAppResources.toPath(), outputFolder.toPath(), bundleManifest);
+                recordFilesCopied(additionalAppResources.toPath());
             } catch(IOException ex){
                 throw new MojoExecutionException("Could not copy additional application resources, please check your build log.", ex);
             }
@@ -704,7 +1707,7 @@ public class CreateJavaAppBundle extends AbstractMojo {
         if( additionalAppResourcesList != null && !additionalAppResourcesList.isEmpty() ){
             AtomicReference<MojoExecutionException> copyException = new AtomicReference<>();
             additionalAppResourcesList.stream().filter(resourcesList -> {
-                return resourcesList != null && resourcesList.exists() && resourcesList.canRead() && resourcesList.list().length > 0;
+                return resourcesList != null && resourcesList.exists() && resourcesList.canRead() && !isFolderEmpty(resourcesList);
             }).forEach(additionalResources -> {
                 if( verbose ){
                     getLog().info("Copying additional application resources...");
@@ -713,7 +1716,8 @@ public class CreateJavaAppBundle extends AbstractMojo {
                 // when having the first exception, skip all following tasks
                 if( copyException.get() == null ){
                     try{
-                        internalUtils.copyRecursive(additionalResources.toPath(), outputFolder.toPath());
+                        internalUtils.copyRecursive(additionalResources.toPath(), outputFolder.toPath(), bundleManifest);
+                        recordFilesCopied(additionalResources.toPath());
                     } catch(IOException ex){
                         copyException.set(new MojoExecutionException("Could not copy additional application resources, please check your build log.", ex));
                     }
@@ -739,75 +1743,121 @@ public class CreateJavaAppBundle extends AbstractMojo {
                 throw new MojoFailureException("Not possible to create output library folder: " + outputLibFolder.getAbsolutePath());
             }
 
+            if( dependencyLinkMode == null || dependencyLinkMode.trim().isEmpty() ){
+                dependencyLinkMode = DEPENDENCY_LINK_MODE_COPY;
+            }
+            dependencyLinkMode = dependencyLinkMode.trim().toLowerCase();
+            if( !DEPENDENCY_LINK_MODE_COPY.equals(dependencyLinkMode) && !DEPENDENCY_LINK_MODE_HARDLINK.equals(dependencyLinkMode) && !DEPENDENCY_LINK_MODE_SYMLINK.equals(dependencyLinkMode) ){
+                throw new MojoFailureException(String.format("Unknown value for 'dependencyLinkMode': '%s'. Please check your plugin-configuration.", dependencyLinkMode));
+            }
+
+            LibFolderIndex libFolderIndex = null;
+            if( incrementalDependencyCopy ){
+                if( verbose ){
+                    getLog().info("Using incremental copy of dependencies...");
+                }
+                try{
+                    libFolderIndex = new LibFolderIndex(getLibFolderIndexFile());
+                } catch(IOException ex){
+                    throw new MojoExecutionException("Could not read index of lib-folder.", ex);
+                }
+            }
+            final LibFolderIndex usedLibFolderIndex = libFolderIndex;
+
+            // collect all files to copy, keeping their registration order for having some deterministic classpath
+            // (having the same filename multiple times, the last registered dependency wins, as it would overwrite the previous one)
+            Map<String, File> dependencyFilesToCopy = new LinkedHashMap<>();
+            Map<String, String> failureMessages = new HashMap<>();
             if( copySystemDependencies ){
                 if( verbose ){
                     getLog().info("Copying registered system-scoped dependencies...");
                 }
-                AtomicReference<MojoExecutionException> copyException = new AtomicReference<>();
                 project.getDependencies().stream()
                         .filter(dependency -> "system".equalsIgnoreCase(dependency.getScope()))
                         .forEach(dependency -> {
-                            if( verbose ){
-                                getLog().info("Copying dependency to lib folder...");
-                                getLog().info("Using source: " + dependency.getSystemPath());
-                            }
-                            // when having the first exception, skip all following tasks
-                            if( copyException.get() == null ){
-                                File dependencyFilePath = new File(dependency.getSystemPath());
-                                File targetLibFile = outputLibFolder.toPath().resolve(dependencyFilePath.getName()).toFile();
-                                try{
-                                    Files.copy(dependencyFilePath.toPath(), targetLibFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
-                                    copiedDependencies.add(outputLibFolder.toPath().relativize(targetLibFile.toPath()).toString());
-                                } catch(IOException ex){
-                                    copyException.set(new MojoExecutionException("Could not copy system-scoped dependency, please check your build log.", ex));
-                                }
-                            } else {
-                                if( verbose ){
-                                    getLog().info("Skipped due to prior exception.");
-                                }
-                            }
+                            File dependencyFile = new File(dependency.getSystemPath());
+                            dependencyFilesToCopy.put(dependencyFile.getName(), dependencyFile);
+                            failureMessages.put(dependencyFile.getName(), "Could not copy system-scoped dependency, please check your build log.");
                         });
-                if( copyException.get() != null ){
-                    throw copyException.get();
-                }
             }
             if( verbose ){
                 getLog().info("Copying registered provided-scoped and runtime-scoped dependencies...");
             }
 
-            AtomicReference<MojoExecutionException> copyException = new AtomicReference<>();
             project.getArtifacts().stream().filter(dependencyArtifact -> {
                 // filter all unreadable, non-file artifacts
                 File artifactFile = dependencyArtifact.getFile();
                 return artifactFile.isFile() && artifactFile.canRead();
             }).forEach(dependencyArtifact -> {
-                if( verbose ){
-                    getLog().info("Copying dependency to lib folder...");
-                    getLog().info("Using source: " + dependencyArtifact.getFile());
-                }
-                // when having the first exception, skip all following tasks
-                if( copyException.get() == null ){
-                    File dependencyArtifactFile = dependencyArtifact.getFile();
-                    File targetLibFile = outputLibFolder.toPath().resolve(dependencyArtifactFile.getName()).toFile();
-                    try{
-                        Files.copy(dependencyArtifactFile.toPath(), targetLibFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
-                        copiedDependencies.add(outputLibFolder.toPath().relativize(targetLibFile.toPath()).toString());
-                    } catch(IOException ex){
-                        copyException.set(new MojoExecutionException("Could not copy provided-scoped or runtime-scoped dependency, please check your build log.", ex));
-                    }
-                } else {
-                    if( verbose ){
-                        getLog().info("Skipped due to prior exception.");
-                    }
-                }
+                File dependencyFile = dependencyArtifact.getFile();
+                dependencyFilesToCopy.put(dependencyFile.getName(), dependencyFile);
+                failureMessages.put(dependencyFile.getName(), "Could not copy provided-scoped or runtime-scoped dependency, please check your build log.");
             });
 
+            int usedParallelism = Math.max(1, Math.min(dependencyCopyParallelism, dependencyFilesToCopy.size()));
+            if( verbose && usedParallelism > 1 ){
+                getLog().info(String.format("Copying dependencies using %s threads...", usedParallelism));
+            }
+
+            Set<String> copiedDependencyNames = ConcurrentHashMap.newKeySet();
+            AtomicReference<MojoExecutionException> copyException = new AtomicReference<>();
+            ExecutorService copyExecutor = Executors.newFixedThreadPool(usedParallelism);
+            try{
+                dependencyFilesToCopy.forEach((dependencyFilename, dependencyFile) -> {
+                    copyExecutor.execute(bundlingMetrics.measureAllocations(() -> {
+                        // when having the first exception, skip all following tasks
+                        if( copyException.get() != null ){
+                            if( verbose ){
+                                getLog().info("Skipped due to prior exception.");
+                            }
+                            return;
+                        }
+                        if( verbose ){
+                            getLog().info("Copying dependency to lib folder...");
+                            getLog().info("Using source: " + dependencyFile);
+                        }
+                        try{
+                            copiedDependencyNames.add(copyDependencyToLibFolder(dependencyFile, usedLibFolderIndex));
+                        } catch(IOException ex){
+                            if( copyException.compareAndSet(null, new MojoExecutionException(failureMessages.get(dependencyFilename), ex)) ){
+                                // stop all other workers
+                                copyExecutor.shutdownNow();
+                            }
+                        } catch(Throwable t){
+                            // the executor would swallow it, so hand it over to the calling thread
+                            if( copyException.compareAndSet(null, new MojoExecutionException("There was an unexpected exception while copying dependency: " + dependencyFile, t)) ){
+                                copyExecutor.shutdownNow();
+                            }
+                        }
+                    }));
+                });
+            } catch(RejectedExecutionException ex){
+                // some worker already failed and stopped the executor
+            }
+            copyExecutor.shutdown();
+            try{
+                copyExecutor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+            } catch(InterruptedException ex){
+                copyExecutor.shutdownNow();
+                Thread.currentThread().interrupt();
+                throw new MojoExecutionException("Got interrupted while copying dependencies.", ex);
+            }
+
             if( copyException.get() != null ){
                 throw copyException.get();
             }
 
+            // results are coming in some random order, so use the registration order for the classpath
+            dependencyFilesToCopy.keySet().stream()
+                    .filter(copiedDependencyNames::contains)
+                    .forEach(copiedDependencies::add);
+
+            if( usedLibFolderIndex != null ){
+                removeStaleDependenciesFromLibFolder(usedLibFolderIndex);
+            }
+
             // remove lib-folder, when nothing ended up there
-            if( outputLibFolder.list().length == 0 ){
+            if( isFolderEmpty(outputLibFolder) ){
                 if( verbose ){
                     getLog().info("Removing lib-folder, as it was empty...");
                 }
@@ -822,7 +1872,100 @@ public class CreateJavaAppBundle extends AbstractMojo {
         return copiedDependencies;
     }
 
-    private void maintainMainClassInManifest(Properties settingsForThisRun, Path targetAppArtifact) throws MojoExecutionException, MojoFailureException {
+    private String copyDependencyToLibFolder(File dependencyFile, LibFolderIndex libFolderIndex) throws IOException {
+        Path targetLibFile = outputLibFolder.toPath().resolve(dependencyFile.getName());
+        String relativeLibFile = dependencyFile.getName();
+        if( libFolderIndex != null && libFolderIndex.isUpToDate(relativeLibFile, dependencyFile.toPath(), targetLibFile) ){
+            if( verbose ){
+                getLog().info("Skipped unchanged dependency.");
+            }
+            bundlingMetrics.addFileTouched();
+            return relativeLibFile;
+        }
+        if( linkDependencyToLibFolder(dependencyFile.toPath(), targetLibFile) ){
+            bundlingMetrics.addFileTouched();
+        } else {
+            FlightRecorderEvents.TimedEvent fileCopyEvent = FlightRecorderEvents.begin(FlightRecorderEvents.FILE_COPY);
+            if( bundleManifest != null ){
+                bundleManifest.copy(dependencyFile.toPath(), targetLibFile);
+            } else {
+                Files.copy(dependencyFile.toPath(), targetLibFile, StandardCopyOption.REPLACE_EXISTING);
+            }
+            long copiedBytes = Files.size(targetLibFile);
+            fileCopyEvent.commit(dependencyFile.getAbsolutePath(), targetLibFile.toAbsolutePath().toString(), copiedBytes);
+            bundlingMetrics.addFileRead(copiedBytes);
+            bundlingMetrics.addFileWritten(copiedBytes);
+        }
+        if( libFolderIndex != null ){
+            libFolderIndex.record(relativeLibFile, dependencyFile.toPath(), targetLibFile);
+        }
+        return relativeLibFile;
+    }
+
+    private boolean linkDependencyToLibFolder(Path dependencyFile, Path targetLibFile) throws IOException {
+        if( DEPENDENCY_LINK_MODE_COPY.equals(dependencyLinkMode) ){
+            return false;
+        }
+        if( !Files.getFileStore(dependencyFile).equals(Files.getFileStore(outputLibFolder.toPath())) ){
+            if( verbose ){
+                getLog().info("Dependency is not on the same filesystem as the lib-folder, copying instead of linking.");
+            }
+            return false;
+        }
+        // existing files are not replaced when creating links
+        Files.deleteIfExists(targetLibFile);
+        try{
+            if( DEPENDENCY_LINK_MODE_HARDLINK.equals(dependencyLinkMode) ){
+                Files.createLink(targetLibFile, dependencyFile);
+            } else {
+                Files.createSymbolicLink(targetLibFile, dependencyFile.toAbsolutePath());
+            }
+        } catch(IOException | UnsupportedOperationException ex){
+            if( verbose ){
+                getLog().info("Could not create link, copying instead: " + ex.getMessage());
+            }
+            return false;
+        }
+        return true;
+    }
+
+    private void removeStaleDependenciesFromLibFolder(LibFolderIndex libFolderIndex) throws MojoExecutionException {
+        try{
+            for( String staleEntry : libFolderIndex.getStaleEntries() ){
+                if( verbose ){
+                    getLog().info("Removing dependency which is not registered anymore: " + staleEntry);
+                }
+                Files.deleteIfExists(outputLibFolder.toPath().resolve(staleEntry));
+            }
+            libFolderIndex.store();
+        } catch(IOException ex){
+            throw new MojoExecutionException("Could not update index of lib-folder.", ex);
+        }
+    }
+
+    private boolean isFolderEmpty(File folder) {
+        try{
+            return internalUtils.isFolderEmpty(folder.toPath());
+        } catch(IOException ex){
+            // not readable, so there is nothing to work on
+            return true;
+        }
+    }
+
+    private long countFolderEntries(File folder) {
+        try{
+            return internalUtils.countFolderEntries(folder.toPath());
+        } catch(IOException ex){
+            return 0;
+        }
+    }
+
+    private Path getLibFolderIndexFile() {
+        String indexFilename = "distbundle.java-app-dependencies." + mojoExecution.getExecutionId() + ".index";
+        return new File(project.getBuild().getDirectory()).toPath().resolve(indexFilename);
+    }
+
+    private Manifest maintainMainClassInManifest(Properties settingsForThisRun, Path sourceAppArtifact) throws MojoExecutionException, MojoFailureException {
         if( verbose ){
             getLog().info("Maintaining main-class in manifest...");
         }
@@ -840,8 +1983,12 @@ public class CreateJavaAppBundle extends AbstractMojo {
             // scan if is already executable jar, otherwise rework this
             AtomicBoolean hasRegisteredMainClass = new AtomicBoolean(false);
             AtomicBoolean registeredMainClassMatchesConfiguredMainClass = new AtomicBoolean(false);
-            try(JarFile jarFile = new JarFile(targetAppArtifact.toFile())){
+            AtomicReference<Manifest> manifest = new AtomicReference<>();
+            bundlingMetrics.addFileTouched();
+            try(JarFile jarFile = new JarFile(sourceAppArtifact.toFile())){
                 Optional.ofNullable(jarFile.getManifest()).ifPresent(existingManifest -> {
+                    // work on some copy, as this gets written into the generated jar-file later
+                    manifest.set(new Manifest(existingManifest));
                     Optional.ofNullable(existingManifest.getMainAttributes().get(Attributes.Name.MAIN_CLASS)).ifPresent(registeredMainClass -> {
                         if( !String.valueOf(registeredMainClass).trim().isEmpty() ){
                             if( verbose ){
@@ -872,46 +2019,23 @@ public class CreateJavaAppBundle extends AbstractMojo {
             if( ignoreMainClassMismatch ){
                 getLog().warn("The already existing main-class does not match the configured one. Please check if this is correct. You might want to set 'ignoreMainClassMismatch' to true to avoid this warning.");
             }
-            // rework or create manifest file with new entries
+            // rework or create manifest with new entries, gets written while copying the artifact
             if( hasCustomMainClass ){
                 if( verbose ){
                     getLog().info("Trying to change main-class in manifest of JAR file...");
                 }
 
-                Map<String, String> env = new HashMap<>();
-                URI uriToJarFile = targetAppArtifact.toAbsolutePath().toUri();
-                // using explicit JAR URL syntax
-                URI uriToFileSystem = URI.create("jar:" + uriToJarFile.toString());
-                try(FileSystem zipFS = FileSystems.newFileSystem(uriToFileSystem, env, null)){
-                    boolean hasManifestFile = false;
-                    Manifest manifest = new Manifest();
-
-                    // first check if manifest-file exists at all
-                    Path manifestFile = zipFS.getPath("/META-INF/MANIFEST.MF");
-                    if( Files.exists(manifestFile, LinkOption.NOFOLLOW_LINKS) ){
-                        hasManifestFile = true;
-                        // if it exists, load existing values
-                        try(InputStream manifestAsStream = Files.newInputStream(manifestFile, StandardOpenOption.READ)){
-                            manifest.read(manifestAsStream);
-                        }
-                    }
-
-                    // adjust manifest-entries
-                    Attributes mainAttributes = manifest.getMainAttributes();
-                    if( !hasManifestFile ){
-                        mainAttributes.put(Attributes.Name.MANIFEST_VERSION, "1.0");
-                    }
-                    mainAttributes.put(Attributes.Name.MAIN_CLASS, mainClass.trim());
+                if( manifest.get() == null ){
+                    manifest.set(new Manifest());
+                    manifest.get().getMainAttributes().put(Attributes.Name.MANIFEST_VERSION, "1.0");
+                }
+                manifest.get().getMainAttributes().put(Attributes.Name.MAIN_CLASS, mainClass.trim());
 
-                    if( verbose ){
-                        getLog().info("Changing/Writing main-class in manifest of JAR file...");
-                    }
-                    // (over)write it back to artifact
-                    try(OutputStream manifestOutput = Files.newOutputStream(manifestFile, StandardOpenOption.TRUNCATE_EXISTING)){
-                        manifest.write(manifestOutput);
-                    }
+                if( verbose ){
+                    getLog().info("Changing/Writing main-class in manifest of JAR file...");
                 }
             }
+            return manifest.get();
         } catch(IOException ex){
             throw new MojoExecutionException(null, ex);
         }
@@ -948,10 +2072,39 @@ public class CreateJavaAppBundle extends AbstractMojo {
         return sourceToCopy;
     }
 
+    private long parseOutputTimestamp() throws MojoFailureException {
+        // same as maven-archiver: a single character disables reproducible builds (e.g. when overriding the inherited value)
+        if( outputTimestamp == null || outputTimestamp.trim().length() < 2 ){
+            return -1;
+        }
+        String timestamp = outputTimestamp.trim();
+        long timestampMillis;
+        try{
+            if( timestamp.chars().allMatch(Character::isDigit) ){
+                timestampMillis = Long.parseLong(timestamp) * 1000L;
+            } else {
+                timestampMillis = OffsetDateTime.parse(timestamp).toInstant().toEpochMilli();
+            }
+        } catch(NumberFormatException | DateTimeParseException ex){
+            throw new MojoFailureException(String.format("Invalid value for 'outputTimestamp': '%s'. Please use ISO-8601 (like '2018-01-01T00:00:00Z') or seconds since epoch.", timestamp), ex);
+        }
+        // ZIP-files can not store anything before 1980
+        if( timestampMillis < OffsetDateTime.of(1980, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC).toInstant().toEpochMilli() ){
+            throw new MojoFailureException(String.format("Value for 'outputTimestamp' has to be after 1980-01-01T00:00:00Z, but was: '%s'.", timestamp));
+        }
+        return timestampMillis;
+    }
+
     private void prepareTargetArea() throws MojoFailureException {
         if( verbose ){
             getLog().info("Prepare target area: " + outputFolder.toString());
         }
+        // output is going to change, so it is not up to date anymore
+        try{
+            Files.deleteIfExists(getBundleFingerprintFile());
+        } catch(IOException ex){
+            throw new MojoFailureException("Not possible to remove bundle fingerprint file: " + getBundleFingerprintFile(), ex);
+        }
         if( outputFolder.exists() && cleanupOutputFolder ){
             try{
                 if( verbose ){
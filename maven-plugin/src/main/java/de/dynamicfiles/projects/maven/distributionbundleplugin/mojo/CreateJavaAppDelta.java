@@ -0,0 +1,449 @@
+/*
+ * Copyright 2018 Danny Althoff
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.dynamicfiles.projects.maven.distributionbundleplugin.mojo;
+
+import de.dynamicfiles.projects.maven.distributionbundleplugin.BinaryDelta;
+import de.dynamicfiles.projects.maven.distributionbundleplugin.BundleManifest;
+import de.dynamicfiles.projects.maven.distributionbundleplugin.InternalUtils;
+import de.dynamicfiles.projects.maven.distributionbundleplugin.ZipArchiveEntry;
+import de.dynamicfiles.projects.maven.distributionbundleplugin.ZipArchiveReader;
+import de.dynamicfiles.projects.maven.distributionbundleplugin.ZipCompressionPolicy;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.artifact.InvalidRepositoryException;
+import org.apache.maven.artifact.resolver.ArtifactResolutionRequest;
+import org.apache.maven.artifact.resolver.ArtifactResolutionResult;
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugins.annotations.Component;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.apache.maven.plugins.annotations.ResolutionScope;
+import org.apache.maven.project.MavenProject;
+import org.apache.maven.project.MavenProjectHelper;
+import org.apache.maven.repository.RepositorySystem;
+
+/**
+ * This MOJO creates some delta update package, containing only the differences between the current java-app bundle and some
+ * previous release of that bundle. Clients already having the previous release only need to download this package instead of the
+ * whole bundle.
+ * <p>
+ * The created package contains:
+ * <ul>
+ * <li>"files/": all added files and all changed files, using their path inside the bundle</li>
+ * <li>"patches/": binary differences of changed files (see {@link BinaryDelta}), used instead of the whole file when being
+ * smaller</li>
+ * <li>"deleted-files": all files not existing anymore, one path per line</li>
+ * </ul>
+ *
+ * @author Danny Althoff
+ */
+@Mojo(name = "java-app-delta", requiresDependencyResolution = ResolutionScope.NONE)
+public class CreateJavaAppDelta extends AbstractMojo {
+
+    @Parameter(defaultValue = "${project}", readonly = true)
+    private MavenProject project;
+
+    @Parameter(defaultValue = "${session}", readonly = true)
+    private MavenSession session;
+
+    @Component
+    private RepositorySystem repositorySystem;
+
+    @Component
+    private MavenProjectHelper projectHelper;
+
+    /**
+     * Enable to see some status messages.
+     */
+    @Parameter(defaultValue = "true")
+    private boolean verbose;
+
+    /**
+     * The current java-app bundle, normally the output folder of the "java-app"-goal.
+     */
+    @Parameter(defaultValue = "${project.build.directory}/distbundle/java-app", property = "distbundle.javaappdelta.sourceFolder")
+    private File sourceFolder;
+
+    /**
+     * Packed bundle (ZIP-file) of the previous release, as created by the "java-app"-goal. Instead of some local file, you can
+     * configure "previousBundleArtifact" too.
+     */
+    @Parameter(property = "distbundle.javaappdelta.previousBundle")
+    private File previousBundle;
+
+    /**
+     * Packed bundle of the previous release, resolved from the repositories (format "groupId:artifactId:version:classifier", using
+     * the type "zip"). Example: "com.example:my-app:1.0.0:java-app-bundle".
+     */
+    @Parameter(property = "distbundle.javaappdelta.previousBundleArtifact")
+    private String previousBundleArtifact;
+
+    /**
+     * Specify where the content of the delta update package should be generated to. This folder gets cleaned on every execution.
+     */
+    @Parameter(defaultValue = "${project.build.directory}/distbundle/java-app-delta")
+    private File outputFolder;
+
+    /**
+     * Changed files having at least this size (in bytes) are stored as binary difference, when this is smaller than the whole file.
+     * Set to "-1" to always store the whole file.
+     */
+    @Parameter(defaultValue = "65536")
+    private long binaryDiffMinSize;
+
+    /**
+     * When set to "true", the created delta update package gets attached to the project artifacts.
+     */
+    @Parameter(defaultValue = "false")
+    private boolean attachAsArtifact;
+
+    /**
+     * Classifier of the created delta update package, used for the filename and when attaching it.
+     */
+    @Parameter(defaultValue = "java-app-delta")
+    private String targetClassifier;
+
+    private final InternalUtils internalUtils = new InternalUtils();
+
+    private static final String FILES_FOLDER_NAME = "files";
+    private static final String PATCHES_FOLDER_NAME = "patches";
+    private static final String DELETED_FILES_NAME = "deleted-files";
+
+    private int addedFiles = 0;
+    private int changedFiles = 0;
+    private int patchedFiles = 0;
+    private int deletedFiles = 0;
+    private int unchangedFiles = 0;
+
+    @Override
+    public void execute() throws MojoExecutionException, MojoFailureException {
+        if( !sourceFolder.isDirectory() ){
+            throw new MojoFailureException("Source folder does not exist, please create the java-app bundle first: " + sourceFolder.getAbsolutePath());
+        }
+        if( targetClassifier == null || targetClassifier.trim().isEmpty() ){
+            throw new MojoFailureException("Missing configuration of 'targetClassifier'-parameter. Please check your plugin-configuration.");
+        }
+        File previousBundleFile = findPreviousBundle();
+
+        prepareOutputFolder();
+
+        if( verbose ){
+            getLog().info("Comparing with previous bundle: " + previousBundleFile.getAbsolutePath());
+        }
+        try(ZipArchiveReader previousBundleReader = new ZipArchiveReader(previousBundleFile.toPath())){
+            createDelta(previousBundleReader);
+        } catch(IOException ex){
+            throw new MojoExecutionException("Could not create delta update package, please check your build log.", ex);
+        }
+        if( verbose ){
+            getLog().info(String.format("Found %s added, %s changed (%s as binary difference), %s deleted and %s unchanged files.", addedFiles, changedFiles + patchedFiles, patchedFiles, deletedFiles, unchangedFiles));
+        }
+
+        File deltaPackage = new File(project.getBuild().getDirectory(), project.getBuild().getFinalName() + "-" + targetClassifier + ".zip");
+        if( verbose ){
+            getLog().info("Creating delta update package (ZIP-file)...");
+        }
+        try{
+            internalUtils.pack(outputFolder.toPath(), deltaPackage.toPath(), 1, ZipCompressionPolicy.createDefault());
+        } catch(IOException ex){
+            throw new MojoExecutionException("Could not create delta update package, please check your build log.", ex);
+        }
+        if( attachAsArtifact ){
+            if( verbose ){
+                getLog().info("Attaching delta update package to project artifacts using classifier '" + targetClassifier + "' ...");
+            }
+            projectHelper.attachArtifact(project, "zip", targetClassifier, deltaPackage);
+        }
+    }
+
+    private File findPreviousBundle() throws MojoExecutionException, MojoFailureException {
+        boolean hasPreviousBundleArtifact = previousBundleArtifact != null && !previousBundleArtifact.trim().isEmpty();
+        if( previousBundle != null && hasPreviousBundleArtifact ){
+            throw new MojoFailureException("Please configure either 'previousBundle' or 'previousBundleArtifact', not both.");
+        }
+        if( previousBundle != null ){
+            if( !previousBundle.isFile() ){
+                throw new MojoFailureException("Previous bundle does not exist: " + previousBundle.getAbsolutePath());
+            }
+            return previousBundle;
+        }
+        if( !hasPreviousBundleArtifact ){
+            throw new MojoFailureException("Missing configuration of 'previousBundle'-parameter or 'previousBundleArtifact'-parameter. Please check your plugin-configuration.");
+        }
+
+        String[] previousBundleParts = previousBundleArtifact.trim().split(":");
+        if( previousBundleParts.length != 4 ){
+            throw new MojoFailureException("Provided previousBundleArtifact did not contain the requested GAV-format with classifier. Please check your configuration.");
+        }
+        Artifact artifactToResolve = repositorySystem.createArtifactWithClassifier(previousBundleParts[0], previousBundleParts[1], previousBundleParts[2], "zip", previousBundleParts[3]);
+
+        if( verbose ){
+            getLog().info(String.format("Resolving previous bundle artifact: %s", previousBundleArtifact.trim()));
+        }
+
+        ArtifactResolutionRequest request = new ArtifactResolutionRequest();
+        request.setArtifact(artifactToResolve);
+        try{
+            request.setLocalRepository(repositorySystem.createDefaultLocalRepository());
+        } catch(InvalidRepositoryException ire){
+            throw new MojoExecutionException("Got exception while creating local repository reference.", ire);
+        }
+        request.setRemoteRepositories(project.getRemoteArtifactRepositories());
+        request.setOffline(session.isOffline());
+
+        ArtifactResolutionResult result = repositorySystem.resolve(request);
+        if( !result.isSuccess() || artifactToResolve.getFile() == null ){
+            if( result.hasExceptions() ){
+                throw new MojoExecutionException("Could not resolve previous bundle, here is the last exception:", result.getExceptions().get(result.getExceptions().size() - 1));
+            }
+            throw new MojoExecutionException("Could not resolve previous bundle: " + previousBundleArtifact.trim());
+        }
+        return artifactToResolve.getFile();
+    }
+
+    private void prepareOutputFolder() throws MojoFailureException {
+        if( verbose ){
+            getLog().info("Prepare target area: " + outputFolder.toString());
+        }
+        // any remaining file would end up inside the delta update package
+        if( outputFolder.exists() ){
+            try{
+                internalUtils.deleteRecursive(outputFolder.toPath());
+            } catch(IOException ex){
+                throw new MojoFailureException("Not possible to cleanup output folder: " + outputFolder.getAbsolutePath(), ex);
+            }
+        }
+        if( !outputFolder.mkdirs() ){
+            throw new MojoFailureException("Not possible to create output folder: " + outputFolder.getAbsolutePath());
+        }
+    }
+
+    private void createDelta(ZipArchiveReader previousBundleReader) throws IOException {
+        Path sourcePath = sourceFolder.toPath();
+        Map<String, String> previousChecksums = readPreviousBundleManifest(previousBundleReader);
+        Map<String, String> currentChecksums = readCurrentBundleManifest();
+
+        List<Path> currentFiles;
+        try(Stream<Path> sourceFolderStream = Files.walk(sourcePath)){
+            currentFiles = sourceFolderStream.filter(Files::isRegularFile).sorted().collect(Collectors.toList());
+        }
+
+        Set<String> currentPaths = new TreeSet<>();
+        for( Path currentFile : currentFiles ){
+            String relativePath = sourcePath.relativize(currentFile).toString().replace("\\", "/");
+            currentPaths.add(relativePath);
+            ZipArchiveEntry previousEntry = previousBundleReader.getEntry(relativePath);
+            if( previousEntry == null || previousEntry.isDirectory() ){
+                addedFiles++;
+                copyIntoDelta(currentFile, relativePath);
+                continue;
+            }
+            if( isUnchanged(previousBundleReader, previousEntry, currentFile, previousChecksums.get(relativePath), currentChecksums.get(relativePath)) ){
+                unchangedFiles++;
+                continue;
+            }
+            if( writeBinaryDiff(previousBundleReader, previousEntry, currentFile, relativePath) ){
+                patchedFiles++;
+            } else {
+                changedFiles++;
+                copyIntoDelta(currentFile, relativePath);
+            }
+        }
+
+        Set<String> removedPaths = previousBundleReader.getEntries().stream()
+                .filter(previousEntry -> !previousEntry.isDirectory())
+                .map(ZipArchiveEntry::getName)
+                .filter(previousPath -> !currentPaths.contains(previousPath))
+                .collect(Collectors.toCollection(TreeSet::new));
+        deletedFiles = removedPaths.size();
+        try(OutputStream deletedFilesOutputStream = Files.newOutputStream(outputFolder.toPath().resolve(DELETED_FILES_NAME), StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)){
+            for( String removedPath : removedPaths ){
+                deletedFilesOutputStream.write((removedPath + "\n").getBytes(StandardCharsets.UTF_8));
+            }
+        }
+    }
+
+    /**
+     * Compares the size first, the content is compared using the checksums of the bundle manifests (when available), otherwise
+     * using the CRC-32 stored inside the previous bundle followed by comparing all bytes.
+     */
+    private boolean isUnchanged(ZipArchiveReader previousBundleReader, ZipArchiveEntry previousEntry, Path currentFile, String previousChecksum, String currentChecksum) throws IOException {
+        if( previousEntry.getSize() != Files.size(currentFile) ){
+            return false;
+        }
+        if( previousChecksum != null ){
+            if( currentChecksum == null ){
+                currentChecksum = BundleManifest.calculateChecksum(currentFile);
+            }
+            return previousChecksum.equals(currentChecksum);
+        }
+        CRC32 currentCrc = new CRC32();
+        byte[] buffer = new byte[64 * 1024];
+        try(InputStream currentInputStream = Files.newInputStream(currentFile, StandardOpenOption.READ)){
+            int read;
+            while( (read = currentInputStream.read(buffer)) != -1 ){
+                currentCrc.update(buffer, 0, read);
+            }
+        }
+        if( currentCrc.getValue() != previousEntry.getCrc() ){
+            return false;
+        }
+        // same CRC-32 does not guarantee the same content
+        byte[] previousBuffer = new byte[buffer.length];
+        try(InputStream currentInputStream = new BufferedInputStream(Files.newInputStream(currentFile, StandardOpenOption.READ));
+                DataInputStream previousInputStream = new DataInputStream(previousBundleReader.getInputStream(previousEntry))){
+            int read;
+            while( (read = currentInputStream.read(buffer)) != -1 ){
+                previousInputStream.readFully(previousBuffer, 0, read);
+                for( int index = 0; index < read; index++ ){
+                    if( buffer[index] != previousBuffer[index] ){
+                        return false;
+                    }
+                }
+            }
+        }
+        return true;
+    }
+
+    private boolean writeBinaryDiff(ZipArchiveReader previousBundleReader, ZipArchiveEntry previousEntry, Path currentFile, String relativePath) throws IOException {
+        long currentSize = Files.size(currentFile);
+        if( binaryDiffMinSize < 0 || currentSize < binaryDiffMinSize ){
+            return false;
+        }
+        Path patchFile = outputFolder.toPath().resolve(PATCHES_FOLDER_NAME).resolve(relativePath);
+        Files.createDirectories(patchFile.getParent());
+        // stored entries can be read directly, compressed ones have to be extracted for random access
+        Path extractedPreviousFile = null;
+        try{
+            FileChannel previousChannel = previousBundleReader.getChannel();
+            long previousStart = 0;
+            if( previousEntry.getMethod() == ZipArchiveEntry.METHOD_STORED ){
+                previousStart = previousBundleReader.getDataOffset(previousEntry);
+            } else {
+                Path buildDirectory = new File(project.getBuild().getDirectory()).toPath();
+                Files.createDirectories(buildDirectory);
+                extractedPreviousFile = Files.createTempFile(buildDirectory, "java-app-delta", ".previous");
+                try(InputStream previousInputStream = previousBundleReader.getInputStream(previousEntry)){
+                    Files.copy(previousInputStream, extractedPreviousFile, StandardCopyOption.REPLACE_EXISTING);
+                }
+                previousChannel = FileChannel.open(extractedPreviousFile, StandardOpenOption.READ);
+            }
+            try(InputStream currentInputStream = Files.newInputStream(currentFile, StandardOpenOption.READ);
+                    OutputStream patchOutputStream = new BufferedOutputStream(Files.newOutputStream(patchFile, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE))){
+                BinaryDelta.create(previousChannel, previousStart, previousEntry.getSize(), currentInputStream, currentSize, patchOutputStream);
+            } finally{
+                if( extractedPreviousFile != null ){
+                    previousChannel.close();
+                }
+            }
+        } finally{
+            if( extractedPreviousFile != null ){
+                Files.deleteIfExists(extractedPreviousFile);
+            }
+        }
+        if( Files.size(patchFile) < currentSize ){
+            return true;
+        }
+        // nearly everything changed, so the whole file is smaller
+        Files.delete(patchFile);
+        return false;
+    }
+
+    private void copyIntoDelta(Path currentFile, String relativePath) throws IOException {
+        Path targetFile = outputFolder.toPath().resolve(FILES_FOLDER_NAME).resolve(relativePath);
+        Files.createDirectories(targetFile.getParent());
+        Files.copy(currentFile, targetFile, StandardCopyOption.COPY_ATTRIBUTES);
+    }
+
+    /**
+     * Same heuristic as for the current bundle manifest: the checksums are only trusted for entries having the listed size and not
+     * being modified after the manifest was written, all other entries get compared by their content.
+     */
+    private Map<String, String> readPreviousBundleManifest(ZipArchiveReader previousBundleReader) throws IOException {
+        Map<String, String> previousChecksums = new HashMap<>();
+        ZipArchiveEntry previousManifestEntry = previousBundleReader.getEntry(BundleManifest.FILENAME);
+        if( previousManifestEntry == null ){
+            return previousChecksums;
+        }
+        long manifestTime = previousManifestEntry.getTime();
+        try(BufferedReader manifestReader = new BufferedReader(new InputStreamReader(previousBundleReader.getInputStream(previousManifestEntry), StandardCharsets.UTF_8))){
+            String line;
+            while( (line = manifestReader.readLine()) != null ){
+                String[] lineParts = line.split(" ", 3);
+                if( lineParts.length != 3 ){
+                    continue;
+                }
+                ZipArchiveEntry listedEntry = previousBundleReader.getEntry(lineParts[2]);
+                if( listedEntry != null && String.valueOf(listedEntry.getSize()).equals(lineParts[1]) && listedEntry.getTime() <= manifestTime ){
+                    previousChecksums.put(lineParts[2], lineParts[0]);
+                }
+            }
+        }
+        return previousChecksums;
+    }
+
+    /**
+     * The bundle manifest gets written while copying, so the checksums are only trusted for files having the listed size and not
+     * being modified after the manifest was written. Files changed afterwards (e.g. by some other plugin) are having a newer
+     * last-modified time and get compared by their content instead. This heuristic only fails when some file gets replaced
+     * keeping its size and setting some older last-modified time, which the java-app goal itself never does.
+     */
+    private Map<String, String> readCurrentBundleManifest() throws IOException {
+        Map<String, String> currentChecksums = new HashMap<>();
+        Path currentManifestFile = sourceFolder.toPath().resolve(BundleManifest.FILENAME);
+        if( !Files.isRegularFile(currentManifestFile) ){
+            return currentChecksums;
+        }
+        FileTime manifestTime = Files.getLastModifiedTime(currentManifestFile);
+        for( String line : Files.readAllLines(currentManifestFile, StandardCharsets.UTF_8) ){
+            String[] lineParts = line.split(" ", 3);
+            if( lineParts.length != 3 ){
+                continue;
+            }
+            Path listedFile = sourceFolder.toPath().resolve(lineParts[2]);
+            if( Files.isRegularFile(listedFile) && String.valueOf(Files.size(listedFile)).equals(lineParts[1]) && Files.getLastModifiedTime(listedFile).compareTo(manifestTime) <= 0 ){
+                currentChecksums.put(lineParts[2], lineParts[0]);
+            }
+        }
+        return currentChecksums;
+    }
+}
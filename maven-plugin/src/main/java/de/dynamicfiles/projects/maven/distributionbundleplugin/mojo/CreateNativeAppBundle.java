@@ -15,6 +15,7 @@
  */
 package de.dynamicfiles.projects.maven.distributionbundleplugin.mojo;
 
+import de.dynamicfiles.projects.maven.distributionbundleplugin.FlightRecorderEvents;
 import de.dynamicfiles.projects.maven.distributionbundleplugin.InternalUtils;
 import de.dynamicfiles.projects.maven.distributionbundleplugin.api.NativeAppOptions;
 import de.dynamicfiles.projects.maven.distributionbundleplugin.api.NativeLauncher;
@@ -192,8 +193,12 @@ public class CreateNativeAppBundle extends AbstractMojo {
     @Override
     public void execute() throws MojoExecutionException, MojoFailureException {
         // first check if there is something to process on
-        if( !sourceFolder.exists() || sourceFolder.list().length == 0 ){
-            throw new MojoExecutionException("No resources found to work on. Make sure to call 'distbundle:java-app' first.");
+        try{
+            if( internalUtils.isFolderEmpty(sourceFolder.toPath()) ){
+                throw new MojoExecutionException("No resources found to work on. Make sure to call 'distbundle:java-app' first.");
+            }
+        } catch(IOException ex){
+            throw new MojoExecutionException("No resources found to work on. Make sure to call 'distbundle:java-app' first.", ex);
         }
 
         if( verbose ){
@@ -476,14 +481,18 @@ public class CreateNativeAppBundle extends AbstractMojo {
                 nativeAppOptions.setVerbose(verbose);
                 nativeAppOptions.setWithJRE(withJRE);
 
+                FlightRecorderEvents.TimedEvent checkRequirementsEvent = FlightRecorderEvents.begin(FlightRecorderEvents.BUNDLER_CALL);
                 appBundler.checkRequirements(nativeAppOptions, internalUtils, project, repositorySystem, mojoExecution, session, getLog());
+                checkRequirementsEvent.commit(appBundler.getBundlerIdentifier(), "checkRequirements");
 
                 if( verbose ){
                     getLog().info("Running creation of native app bundle...");
                 }
 
                 // here we have a "valid" bundler, so call it
+                FlightRecorderEvents.TimedEvent bundleAppEvent = FlightRecorderEvents.begin(FlightRecorderEvents.BUNDLER_CALL);
                 File bundlerOutput = appBundler.bundleApp(nativeAppOptions, internalUtils, project, repositorySystem, mojoExecution, session, getLog());
+                bundleAppEvent.commit(appBundler.getBundlerIdentifier(), "bundleApp");
             } catch(MojoFailureException | MojoExecutionException ex){
                 // pass exception to outer world
                 innerException.set(ex);